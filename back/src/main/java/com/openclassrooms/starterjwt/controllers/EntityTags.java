@@ -0,0 +1,62 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.stream.Collectors;
+
+/**
+ * Strong ETags computed from cheap version aggregates rather than from the serialized body.
+ */
+final class EntityTags {
+    private EntityTags() {
+    }
+
+    static String of(Object... parts) {
+        String source = Arrays.stream(parts).map(String::valueOf).collect(Collectors.joining("|"));
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(source.getBytes(StandardCharsets.UTF_8));
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * ETag of a single session: its version, so that an If-Match header can be checked by the UPDATE itself.
+     */
+    static String ofVersion(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Version expected by an If-Match header, null when absent or "*".
+     *
+     * @throws NumberFormatException when the header is not a version ETag
+     */
+    static Long version(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+
+        String tag = ifMatch.trim();
+        if (tag.length() < 2 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+            throw new NumberFormatException(tag);
+        }
+
+        return Long.valueOf(tag.substring(1, tag.length() - 1));
+    }
+
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+
+        return Arrays.stream(ifNoneMatch.split(","))
+                .map(String::trim)
+                .map(tag -> tag.startsWith("W/") ? tag.substring(2) : tag)
+                .anyMatch(tag -> tag.equals("*") || tag.equals(etag));
+    }
+}
@@ -2,15 +2,51 @@ package com.openclassrooms.starterjwt.controllers;
 
 
 import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.dto.SessionPatchDto;
 import com.openclassrooms.starterjwt.mapper.SessionMapper;
 import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.payload.response.BatchItemError;
+import com.openclassrooms.starterjwt.payload.response.CursorPageResponse;
+import com.openclassrooms.starterjwt.payload.response.MessageResponse;
+import com.openclassrooms.starterjwt.payload.response.SessionBatchResponse;
+import com.openclassrooms.starterjwt.payload.response.SessionChangesResponse;
+import com.openclassrooms.starterjwt.repository.projection.SessionView;
+import com.openclassrooms.starterjwt.services.ParticipationStatus;
+import com.openclassrooms.starterjwt.services.SessionCursor;
+import com.openclassrooms.starterjwt.services.SessionEventBroadcaster;
+import com.openclassrooms.starterjwt.services.SessionFilter;
+import com.openclassrooms.starterjwt.services.SessionSeriesService;
 import com.openclassrooms.starterjwt.services.SessionService;
+import com.openclassrooms.starterjwt.services.TeacherService;
+import com.openclassrooms.starterjwt.services.UserService;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import javax.validation.ConstraintViolation;
 import javax.validation.Valid;
+import javax.validation.Validator;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
 @RestController
@@ -19,34 +55,157 @@ import java.util.List;
 public class SessionController {
     private final SessionMapper sessionMapper;
     private final SessionService sessionService;
+    private final SessionEventBroadcaster sessionEventBroadcaster;
+    private final SessionSeriesService sessionSeriesService;
+    private final TeacherService teacherService;
+    private final UserService userService;
+    private final Validator validator;
 
 
     public SessionController(SessionService sessionService,
-                             SessionMapper sessionMapper) {
+                             SessionMapper sessionMapper,
+                             SessionEventBroadcaster sessionEventBroadcaster,
+                             SessionSeriesService sessionSeriesService,
+                             TeacherService teacherService,
+                             UserService userService,
+                             Validator validator) {
         this.sessionMapper = sessionMapper;
         this.sessionService = sessionService;
+        this.sessionEventBroadcaster = sessionEventBroadcaster;
+        this.sessionSeriesService = sessionSeriesService;
+        this.teacherService = teacherService;
+        this.userService = userService;
+        this.validator = validator;
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> findById(@PathVariable("id") String id) {
+    public ResponseEntity<?> findById(@PathVariable("id") String id,
+                                      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
-            Session session = this.sessionService.getById(Long.valueOf(id));
+            Long version = this.sessionService.getVersion(Long.valueOf(id));
+
+            if (version == null) {
+                return ResponseEntity.notFound().build();
+            }
+
+            String etag = EntityTags.ofVersion(version);
+            if (EntityTags.matches(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+
+            SessionView session = this.sessionService.getViewById(Long.valueOf(id));
 
             if (session == null) {
                 return ResponseEntity.notFound().build();
             }
 
-            return ResponseEntity.ok().body(this.sessionMapper.toDto(session));
+            return ResponseEntity.ok().eTag(etag).body(this.toDto(List.of(session)).get(0));
         } catch (NumberFormatException e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
     @GetMapping()
-    public ResponseEntity<?> findAll() {
-        List<Session> sessions = this.sessionService.findAll();
+    public ResponseEntity<?> findAll(@RequestParam(value = "after", required = false) String after,
+                                     @RequestParam(value = "limit", required = false) Integer limit,
+                                     @RequestParam(value = "page", required = false) Integer page,
+                                     @RequestParam(value = "size", required = false) Integer size,
+                                     @RequestParam(value = "from", required = false) String from,
+                                     @RequestParam(value = "to", required = false) String to,
+                                     @RequestParam(value = "teacherId", required = false) String teacherId,
+                                     @RequestParam(value = "participant", required = false) String participant,
+                                     @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        SessionFilter filter;
+        try {
+            filter = new SessionFilter(toDate(from), toDate(to),
+                    teacherId != null ? Long.valueOf(teacherId) : null,
+                    participant != null ? Long.valueOf(participant) : null);
+        } catch (NumberFormatException | DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
+        }
 
-        return ResponseEntity.ok().body(this.sessionMapper.toDto(sessions));
+        // The version is read before the data: a concurrent change can only make the tag older than the body
+        String etag = EntityTags.of(this.sessionService.getVersion(), after, limit, page, size, from, to, teacherId, participant);
+        if (EntityTags.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
+        // Stored sessions only: the virtual occurrences of series have no id to page on, /timetable lists them
+        if (!filter.isEmpty()) {
+            int pageSize = this.sessionService.pageSize(limit);
+            SessionCursor cursor = after != null && !after.isEmpty() ? SessionCursor.decode(after) : null;
+            List<SessionView> sessions = this.sessionService.findFiltered(filter, cursor, pageSize);
+            String nextCursor = sessions.size() == pageSize
+                    ? SessionCursor.of(sessions.get(sessions.size() - 1)).encode()
+                    : null;
+
+            return ResponseEntity.ok().eTag(etag).body(new CursorPageResponse<>(this.toDto(sessions), pageSize, nextCursor));
+        }
+
+        if (page != null) {
+            Page<SessionView> sessions = this.sessionService.findPage(page, size);
+
+            return ResponseEntity.ok().eTag(etag).body(new PageImpl<>(this.toDto(sessions.getContent()), sessions.getPageable(), sessions.getTotalElements()));
+        }
+
+        if (after != null || limit != null) {
+            int pageSize = this.sessionService.pageSize(limit);
+            SessionCursor cursor = after != null && !after.isEmpty() ? SessionCursor.decode(after) : null;
+            List<SessionView> sessions = this.sessionService.findAllAfter(cursor, pageSize);
+            String nextCursor = sessions.size() == pageSize
+                    ? SessionCursor.of(sessions.get(sessions.size() - 1)).encode()
+                    : null;
+
+            return ResponseEntity.ok().eTag(etag).body(new CursorPageResponse<>(this.toDto(sessions), pageSize, nextCursor));
+        }
+
+        List<SessionView> sessions = this.sessionService.findAllViews();
+
+        return ResponseEntity.ok().eTag(etag).body(this.toDto(sessions));
+    }
+
+    @GetMapping("/changes")
+    public ResponseEntity<?> findChanges(@RequestParam("since") String since) {
+        try {
+            // Taken before the reads: the next call resends the changes of the safety margin,
+            // so that transactions still in flight now are not missed once they commit
+            LocalDateTime watermark = this.sessionService.getChangesWatermark();
+            LocalDateTime from = LocalDateTime.parse(since);
+            if (this.sessionService.requiresFullResync(from)) {
+                return ResponseEntity.status(HttpStatus.GONE)
+                        .body(new MessageResponse("Error: Changes are no longer available since this date, a full resync is required!"));
+            }
+            List<SessionView> updated = this.sessionService.findViewsUpdatedSince(from);
+            List<Long> deleted = this.sessionService.findDeletedSince(from);
+
+            return ResponseEntity.ok().body(new SessionChangesResponse(this.toDto(updated), deleted, watermark));
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/timetable")
+    public ResponseEntity<?> findTimetable(@RequestParam("from") String from, @RequestParam("to") String to) {
+        try {
+            List<SessionView> sessions = this.sessionSeriesService.findTimetable(toDate(from), toDate(to));
+
+            return ResponseEntity.ok().body(this.toDto(sessions));
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<?> search(@RequestParam("q") String query,
+                                    @RequestParam(value = "limit", required = false) Integer limit) {
+        List<SessionView> sessions = this.sessionService.search(query, limit);
+
+        return ResponseEntity.ok().body(this.toDto(sessions));
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream() {
+        return this.sessionEventBroadcaster.subscribe();
     }
 
     @PostMapping()
@@ -59,12 +218,67 @@ public class SessionController {
         return ResponseEntity.ok().body(this.sessionMapper.toDto(session));
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<?> createAll(@RequestBody List<SessionDto> sessionDtos) {
+        if (sessionDtos.isEmpty() || sessionDtos.size() > this.sessionService.getMaxBatchSize()) {
+            return ResponseEntity.badRequest()
+                    .body(new MessageResponse("Error: A batch holds 1 to " + this.sessionService.getMaxBatchSize() + " sessions!"));
+        }
+
+        // Every reference of the batch is resolved up front, with one query per kind
+        Map<Long, Teacher> teachers = this.teacherService.findAllById(sessionDtos.stream()
+                .map(SessionDto::getTeacher_id).filter(Objects::nonNull).collect(Collectors.toSet()));
+        Map<Long, User> users = this.userService.findAllById(sessionDtos.stream()
+                .map(SessionDto::getUsers).filter(Objects::nonNull).flatMap(List::stream)
+                .filter(Objects::nonNull).collect(Collectors.toSet()));
+
+        List<BatchItemError> errors = new ArrayList<>();
+        List<Session> sessions = new ArrayList<>();
+        for (int i = 0; i < sessionDtos.size(); i++) {
+            SessionDto sessionDto = sessionDtos.get(i);
+            String error = this.validate(sessionDto, teachers, users);
+            if (error == null) {
+                Session session = this.sessionMapper.toEntity(sessionDto, teachers, users);
+                error = this.sessionService.exceedsCapacity(session) ? "participants exceed capacity" : null;
+                sessions.add(session);
+            }
+            if (error != null) {
+                errors.add(new BatchItemError(i, error));
+            }
+        }
+
+        if (!errors.isEmpty()) {
+            return ResponseEntity.badRequest().body(new SessionBatchResponse(Collections.emptyList(), errors));
+        }
+
+        List<Session> created = this.sessionService.createAll(sessions);
+
+        return ResponseEntity.ok().body(new SessionBatchResponse(this.sessionMapper.toDto(created), Collections.emptyList()));
+    }
+
     @PutMapping("{id}")
-    public ResponseEntity<?> update(@PathVariable("id") String id, @Valid @RequestBody SessionDto sessionDto) {
+    public ResponseEntity<?> update(@PathVariable("id") String id, @Valid @RequestBody SessionDto sessionDto,
+                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        try {
+            Long sessionId = Long.parseLong(id);
+            Long version = EntityTags.version(ifMatch);
+            SessionView session = this.sessionService.update(sessionId, this.sessionMapper.toEntity(sessionDto), version);
+
+            return ResponseEntity.ok().eTag(EntityTags.ofVersion(session.getVersion())).body(this.toDto(List.of(session)).get(0));
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PatchMapping("{id}")
+    public ResponseEntity<?> patch(@PathVariable("id") String id, @Valid @RequestBody SessionPatchDto sessionPatchDto,
+                                   @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            Session session = this.sessionService.update(Long.parseLong(id), this.sessionMapper.toEntity(sessionDto));
+            Long sessionId = Long.parseLong(id);
+            Long version = EntityTags.version(ifMatch);
+            SessionView session = this.sessionService.patch(sessionId, this.sessionMapper.toPatch(sessionPatchDto, version));
 
-            return ResponseEntity.ok().body(this.sessionMapper.toDto(session));
+            return ResponseEntity.ok().eTag(EntityTags.ofVersion(session.getVersion())).body(this.toDto(List.of(session)).get(0));
         } catch (NumberFormatException e) {
             return ResponseEntity.badRequest().build();
         }
@@ -89,7 +303,13 @@ public class SessionController {
     @PostMapping("{id}/participate/{userId}")
     public ResponseEntity<?> participate(@PathVariable("id") String id, @PathVariable("userId") String userId) {
         try {
-            this.sessionService.participate(Long.parseLong(id), Long.parseLong(userId));
+            ParticipationStatus status = this.sessionService.participate(Long.parseLong(id), Long.parseLong(userId));
+
+            if (status == ParticipationStatus.WAITLISTED) {
+                return ResponseEntity
+                        .status(HttpStatus.ACCEPTED)
+                        .body(new MessageResponse("Session is full, user added to the waitlist!"));
+            }
 
             return ResponseEntity.ok().build();
         } catch (NumberFormatException e) {
@@ -107,4 +327,47 @@ public class SessionController {
             return ResponseEntity.badRequest().build();
         }
     }
-}
\ No newline at end of file
+
+    // Accepts a day (2026-10-19) or a local date-time (2026-10-19T18:30)
+    private static Date toDate(String value) {
+        if (value == null) {
+            return null;
+        }
+
+        LocalDateTime dateTime = value.length() == 10 ? LocalDate.parse(value).atStartOfDay() : LocalDateTime.parse(value);
+        return Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    private String validate(SessionDto sessionDto, Map<Long, Teacher> teachers, Map<Long, User> users) {
+        if (sessionDto == null) {
+            return "missing session";
+        }
+
+        Set<ConstraintViolation<SessionDto>> violations = this.validator.validate(sessionDto);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+        }
+        if (!teachers.containsKey(sessionDto.getTeacher_id())) {
+            return "unknown teacher " + sessionDto.getTeacher_id();
+        }
+
+        List<Long> unknownUsers = Optional.ofNullable(sessionDto.getUsers()).orElseGet(Collections::emptyList).stream()
+                .filter(userId -> !users.containsKey(userId))
+                .collect(Collectors.toList());
+        if (!unknownUsers.isEmpty()) {
+            return "unknown users " + unknownUsers;
+        }
+
+        return null;
+    }
+
+    private List<SessionDto> toDto(List<SessionView> sessions) {
+        Map<Long, List<Long>> participants = this.sessionService.findParticipantIds(
+                sessions.stream().map(SessionView::getId).filter(Objects::nonNull).collect(Collectors.toList()));
+
+        return this.sessionMapper.toDto(sessions, participants);
+    }
+}
@@ -0,0 +1,91 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import com.openclassrooms.starterjwt.dto.SessionSeriesDto;
+import com.openclassrooms.starterjwt.mapper.SessionSeriesMapper;
+import com.openclassrooms.starterjwt.models.SessionSeries;
+import com.openclassrooms.starterjwt.services.SessionSeriesService;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.Valid;
+import java.util.List;
+
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/series")
+@Log4j2
+public class SessionSeriesController {
+    private final SessionSeriesMapper sessionSeriesMapper;
+    private final SessionSeriesService sessionSeriesService;
+
+
+    public SessionSeriesController(SessionSeriesService sessionSeriesService,
+                                   SessionSeriesMapper sessionSeriesMapper) {
+        this.sessionSeriesMapper = sessionSeriesMapper;
+        this.sessionSeriesService = sessionSeriesService;
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> findById(@PathVariable("id") String id) {
+        try {
+            SessionSeries series = this.sessionSeriesService.getById(Long.valueOf(id));
+
+            if (series == null) {
+                return ResponseEntity.notFound().build();
+            }
+
+            return ResponseEntity.ok().body(this.sessionSeriesMapper.toDto(series));
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping()
+    public ResponseEntity<?> findAll() {
+        List<SessionSeries> series = this.sessionSeriesService.findAll();
+
+        return ResponseEntity.ok().body(this.sessionSeriesMapper.toDto(series));
+    }
+
+    @PostMapping()
+    public ResponseEntity<?> create(@Valid @RequestBody SessionSeriesDto sessionSeriesDto) {
+        log.info(sessionSeriesDto);
+
+        SessionSeries series = this.sessionSeriesService.create(this.sessionSeriesMapper.toEntity(sessionSeriesDto));
+
+        log.info(series);
+        return ResponseEntity.ok().body(this.sessionSeriesMapper.toDto(series));
+    }
+
+    @PutMapping("{id}")
+    public ResponseEntity<?> update(@PathVariable("id") String id, @Valid @RequestBody SessionSeriesDto sessionSeriesDto) {
+        try {
+            SessionSeries series = this.sessionSeriesService.update(Long.parseLong(id), this.sessionSeriesMapper.toEntity(sessionSeriesDto));
+
+            if (series == null) {
+                return ResponseEntity.notFound().build();
+            }
+
+            return ResponseEntity.ok().body(this.sessionSeriesMapper.toDto(series));
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @DeleteMapping("{id}")
+    public ResponseEntity<?> delete(@PathVariable("id") String id) {
+        try {
+            SessionSeries series = this.sessionSeriesService.getById(Long.valueOf(id));
+
+            if (series == null) {
+                return ResponseEntity.notFound().build();
+            }
+
+            this.sessionSeriesService.delete(series.getId());
+            return ResponseEntity.ok().build();
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
@@ -1,7 +1,13 @@
 package com.openclassrooms.starterjwt.controllers;
 
+import com.openclassrooms.starterjwt.mapper.SessionMapper;
 import com.openclassrooms.starterjwt.mapper.UserMapper;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.payload.response.CursorPageResponse;
+import com.openclassrooms.starterjwt.repository.projection.SessionView;
+import com.openclassrooms.starterjwt.services.SessionCursor;
+import com.openclassrooms.starterjwt.services.SessionFilter;
+import com.openclassrooms.starterjwt.services.SessionService;
 import com.openclassrooms.starterjwt.services.UserService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -9,7 +15,10 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.stream.Collectors;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
 @RestController
@@ -17,12 +26,18 @@ import java.util.Objects;
 public class UserController {
     private final UserMapper userMapper;
     private final UserService userService;
+    private final SessionService sessionService;
+    private final SessionMapper sessionMapper;
 
 
     public UserController(UserService userService,
-                             UserMapper userMapper) {
+                             UserMapper userMapper,
+                             SessionService sessionService,
+                             SessionMapper sessionMapper) {
         this.userMapper = userMapper;
         this.userService = userService;
+        this.sessionService = sessionService;
+        this.sessionMapper = sessionMapper;
     }
 
     @GetMapping("/{id}")
@@ -40,6 +55,34 @@ public class UserController {
         }
     }
 
+    @GetMapping("/{id}/sessions")
+    public ResponseEntity<?> findSessions(@PathVariable("id") String id,
+                                          @RequestParam(value = "after", required = false) String after,
+                                          @RequestParam(value = "limit", required = false) Integer limit) {
+        try {
+            User user = this.userService.findById(Long.valueOf(id));
+
+            if (user == null) {
+                return ResponseEntity.notFound().build();
+            }
+
+            int pageSize = this.sessionService.pageSize(limit);
+            SessionCursor cursor = after != null && !after.isEmpty() ? SessionCursor.decode(after) : null;
+            List<SessionView> sessions = this.sessionService.findFiltered(
+                    new SessionFilter(null, null, null, user.getId()), cursor, pageSize);
+            Map<Long, List<Long>> participants = this.sessionService.findParticipantIds(
+                    sessions.stream().map(SessionView::getId).collect(Collectors.toList()));
+            String nextCursor = sessions.size() == pageSize
+                    ? SessionCursor.of(sessions.get(sessions.size() - 1)).encode()
+                    : null;
+
+            return ResponseEntity.ok().body(new CursorPageResponse<>(
+                    this.sessionMapper.toDto(sessions, participants), pageSize, nextCursor));
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @DeleteMapping("{id}")
     public ResponseEntity<?> save(@PathVariable("id") String id) {
         try {
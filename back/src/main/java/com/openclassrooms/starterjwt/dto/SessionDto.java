@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
@@ -33,7 +34,16 @@ public class SessionDto {
 
     private List<Long> users;
 
+    private Long seriesId;
+
+    @Min(1)
+    private Integer capacity;
+
+    private Integer seatsTaken;
+
     private LocalDateTime createdAt;
 
     private LocalDateTime updatedAt;
+
+    private Long version;
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.openclassrooms.starterjwt.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.Pattern;
+import javax.validation.constraints.Size;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Fields of a partial session update: null fields are left unchanged.
+ * Participants are only replaced when users is present.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SessionPatchDto {
+    // Stands for @NotBlank, which would also reject an absent name
+    @Size(max = 50)
+    @Pattern(regexp = "(?s).*\\S.*")
+    private String name;
+
+    private Date date;
+
+    private Long teacher_id;
+
+    @Size(max = 2500)
+    private String description;
+
+    private List<Long> users;
+
+    @Min(1)
+    private Integer capacity;
+}
@@ -1,10 +1,16 @@
 package com.openclassrooms.starterjwt.mapper;
 
 import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.dto.SessionPatchDto;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
 import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionPatch;
+import com.openclassrooms.starterjwt.repository.projection.SessionView;
 import com.openclassrooms.starterjwt.services.TeacherService;
 import com.openclassrooms.starterjwt.services.UserService;
+import org.mapstruct.Context;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.Mappings;
@@ -13,11 +19,17 @@ import org.springframework.stereotype.Component;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Component
-@Mapper(componentModel = "spring", uses = {UserService.class}, imports = {Arrays.class, Collectors.class, Session.class, User.class, Collections.class, Optional.class})
+@Mapper(componentModel = "spring", uses = {UserService.class}, imports = {Arrays.class, Collectors.class, Session.class, User.class, Collections.class, LinkedHashSet.class, Optional.class})
 public abstract class SessionMapper implements EntityMapper<SessionDto, Session> {
 
     @Autowired
@@ -27,16 +39,91 @@ public abstract class SessionMapper implements EntityMapper<SessionDto, Session>
 
     @Mappings({
             @Mapping(source = "description", target = "description"),
+            @Mapping(target = "seatsTaken", ignore = true),
+            @Mapping(target = "series", ignore = true),
+            @Mapping(target = "version", ignore = true),
             @Mapping(target = "teacher", expression = "java(sessionDto.getTeacher_id() != null ? this.teacherService.findById(sessionDto.getTeacher_id()) : null)"),
-            @Mapping(target = "users", expression = "java(Optional.ofNullable(sessionDto.getUsers()).orElseGet(Collections::emptyList).stream().map(user_id -> { User user = this.userService.findById(user_id); if (user != null) { return user; } return null; }).collect(Collectors.toList()))"),
+            @Mapping(target = "users", expression = "java(this.resolveUsers(sessionDto.getUsers()))"),
     })
     public abstract Session toEntity(SessionDto sessionDto);
 
+    // Same mapping as above, with teachers and users resolved beforehand for a whole batch
+    @Mappings({
+            @Mapping(target = "id", ignore = true),
+            @Mapping(source = "sessionDto.description", target = "description"),
+            @Mapping(target = "seatsTaken", ignore = true),
+            @Mapping(target = "series", ignore = true),
+            @Mapping(target = "version", ignore = true),
+            @Mapping(target = "teacher", expression = "java(sessionDto.getTeacher_id() != null ? teachers.get(sessionDto.getTeacher_id()) : null)"),
+            @Mapping(target = "users", expression = "java(Optional.ofNullable(sessionDto.getUsers()).orElseGet(Collections::emptyList).stream().map(users::get).collect(Collectors.toCollection(LinkedHashSet::new)))"),
+    })
+    public abstract Session toEntity(SessionDto sessionDto, @Context Map<Long, Teacher> teachers, @Context Map<Long, User> users);
+
 
     @Mappings({
             @Mapping(source = "description", target = "description"),
             @Mapping(source = "session.teacher.id", target = "teacher_id"),
-            @Mapping(target = "users", expression = "java(Optional.ofNullable(session.getUsers()).orElseGet(Collections::emptyList).stream().map(u -> u.getId()).collect(Collectors.toList()))"),
+            @Mapping(source = "session.series.id", target = "seriesId"),
+            @Mapping(target = "users", expression = "java(Optional.ofNullable(session.getUsers()).orElseGet(Collections::emptySet).stream().map(u -> u.getId()).collect(Collectors.toList()))"),
     })
     public abstract SessionDto toDto(Session session);
-}
\ No newline at end of file
+
+    @Mappings({
+            @Mapping(source = "session.teacherId", target = "teacher_id"),
+            @Mapping(source = "users", target = "users"),
+    })
+    public abstract SessionDto toDto(SessionView session, List<Long> users);
+
+    /**
+     * Loads the participants with one query, in the order of the ids; an unknown id rejects the request.
+     */
+    protected Set<User> resolveUsers(List<Long> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return new LinkedHashSet<>();
+        }
+        if (userIds.stream().anyMatch(Objects::isNull)) {
+            throw new BadRequestException();
+        }
+
+        Map<Long, User> users = this.userService.findAllById(new LinkedHashSet<>(userIds));
+        if (users.size() != new HashSet<>(userIds).size()) {
+            throw new BadRequestException();
+        }
+
+        return userIds.stream().map(users::get).collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    /**
+     * Unknown teachers and users reject the request; participants are resolved only when given.
+     */
+    public SessionPatch toPatch(SessionPatchDto sessionPatchDto, Long version) {
+        Teacher teacher = null;
+        if (sessionPatchDto.getTeacher_id() != null) {
+            teacher = this.teacherService.findById(sessionPatchDto.getTeacher_id());
+            if (teacher == null) {
+                throw new BadRequestException();
+            }
+        }
+
+        Set<Long> userIds = sessionPatchDto.getUsers() == null ? null
+                : this.resolveUsers(sessionPatchDto.getUsers()).stream()
+                        .map(User::getId)
+                        .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        return SessionPatch.builder()
+                .name(sessionPatchDto.getName())
+                .date(sessionPatchDto.getDate())
+                .description(sessionPatchDto.getDescription())
+                .teacher(teacher)
+                .capacity(sessionPatchDto.getCapacity())
+                .userIds(userIds)
+                .version(version)
+                .build();
+    }
+
+    public List<SessionDto> toDto(List<SessionView> sessions, Map<Long, List<Long>> participants) {
+        return sessions.stream()
+                .map(session -> this.toDto(session, participants.getOrDefault(session.getId(), Collections.emptyList())))
+                .collect(Collectors.toList());
+    }
+}
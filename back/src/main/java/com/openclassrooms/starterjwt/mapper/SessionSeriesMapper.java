@@ -0,0 +1,44 @@
+package com.openclassrooms.starterjwt.mapper;
+
+import com.openclassrooms.starterjwt.dto.SessionSeriesDto;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.models.SessionSeries;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.services.TeacherService;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.Mappings;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+@Component
+@Mapper(componentModel = "spring")
+public abstract class SessionSeriesMapper implements EntityMapper<SessionSeriesDto, SessionSeries> {
+
+    @Autowired
+    TeacherService teacherService;
+
+    @Mappings({
+            @Mapping(target = "teacher", expression = "java(this.resolveTeacher(sessionSeriesDto.getTeacher_id()))"),
+            @Mapping(target = "materializedUntil", ignore = true),
+    })
+    public abstract SessionSeries toEntity(SessionSeriesDto sessionSeriesDto);
+
+    @Mappings({
+            @Mapping(source = "teacher.id", target = "teacher_id"),
+    })
+    public abstract SessionSeriesDto toDto(SessionSeries sessionSeries);
+
+    protected Teacher resolveTeacher(Long teacherId) {
+        if (teacherId == null) {
+            return null;
+        }
+
+        Teacher teacher = this.teacherService.findById(teacherId);
+        if (teacher == null) {
+            throw new BadRequestException();
+        }
+
+        return teacher;
+    }
+}
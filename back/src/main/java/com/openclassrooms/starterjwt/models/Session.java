@@ -8,15 +8,23 @@ import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import javax.persistence.*;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
 import java.time.LocalDateTime;
 import java.util.Date;
-import java.util.List;
+import java.util.Set;
 
 @Entity
-@Table(name = "SESSIONS")
+@Table(name = "SESSIONS", indexes = {
+        @Index(name = "idx_sessions_updated_at", columnList = "updated_at"),
+        @Index(name = "idx_sessions_date", columnList = "date, id"),
+        @Index(name = "idx_sessions_teacher_date", columnList = "teacher_id, date")
+}, uniqueConstraints = {
+        // An occurrence of a series is materialized at most once
+        @UniqueConstraint(name = "uk_sessions_series_date", columnNames = {"series_id", "date"})
+})
 @EntityListeners(AuditingEntityListener.class)
 @Data
 @Accessors(chain = true)
@@ -41,16 +49,30 @@ public class Session {
     @Size(max = 2500)
     private String description;
 
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "teacher_id", referencedColumnName = "id")
     private Teacher teacher;
 
-    @ManyToMany(fetch = FetchType.EAGER)
+    @ManyToMany
     @JoinTable(
             name = "PARTICIPATE",
             joinColumns = @JoinColumn( name = "session_id" ),
-            inverseJoinColumns = @JoinColumn( name = "user_id" ) )
-    private List<User> users;
+            inverseJoinColumns = @JoinColumn( name = "user_id" ),
+            indexes = @Index(name = "idx_participate_user", columnList = "user_id, session_id") )
+    @ToString.Exclude
+    private Set<User> users;
+
+    @Min(1)
+    private Integer capacity;
+
+    // Set when the session is materialized from a series, never changed afterwards
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "series_id", referencedColumnName = "id", updatable = false)
+    @ToString.Exclude
+    private SessionSeries series;
+
+    @Column(name = "seats_taken", nullable = false)
+    private int seatsTaken;
 
     @CreatedDate
     @Column(name = "created_at", updatable = false)
@@ -59,4 +81,9 @@ public class Session {
     @UpdateTimestamp
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
+
+    // Also incremented by the bulk updates of SessionRepository
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
 }
@@ -0,0 +1,33 @@
+package com.openclassrooms.starterjwt.models;
+
+import lombok.*;
+import lombok.experimental.Accessors;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "SESSION_DELETIONS", indexes = {
+        @Index(name = "idx_session_deletions_deleted_at", columnList = "deleted_at")
+})
+@Data
+@Accessors(chain = true)
+@EqualsAndHashCode(of = {"id"})
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class SessionDeletion {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotNull
+    @Column(name = "session_id", nullable = false)
+    private Long sessionId;
+
+    @NotNull
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+}
@@ -0,0 +1,74 @@
+package com.openclassrooms.starterjwt.models;
+
+import lombok.*;
+import lombok.experimental.Accessors;
+import org.hibernate.annotations.UpdateTimestamp;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import javax.persistence.*;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.time.LocalDateTime;
+import java.util.Date;
+
+/**
+ * A class repeated every intervalDays from startAt until endAt (exclusive, open when null).
+ * Occurrences before materializedUntil are stored as sessions, the later ones only exist virtually.
+ */
+@Entity
+@Table(name = "SESSION_SERIES")
+@EntityListeners(AuditingEntityListener.class)
+@Data
+@Accessors(chain = true)
+@EqualsAndHashCode(of = {"id"})
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class SessionSeries {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotBlank
+    @Size(max = 50)
+    private String name;
+
+    @NotNull
+    @Size(max = 2500)
+    private String description;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "teacher_id", referencedColumnName = "id")
+    @ToString.Exclude
+    private Teacher teacher;
+
+    @Min(1)
+    private Integer capacity;
+
+    @NotNull
+    @Column(name = "start_at", nullable = false)
+    private Date startAt;
+
+    @NotNull
+    @Min(1)
+    @Column(name = "interval_days", nullable = false)
+    private Integer intervalDays;
+
+    @Column(name = "end_at")
+    private Date endAt;
+
+    @Column(name = "materialized_until", nullable = false)
+    private Date materializedUntil;
+
+    @CreatedDate
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
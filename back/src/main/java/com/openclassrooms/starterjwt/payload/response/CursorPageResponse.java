@@ -0,0 +1,16 @@
+package com.openclassrooms.starterjwt.payload.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class CursorPageResponse<T> {
+  private List<T> content;
+
+  private int size;
+
+  private String nextCursor;
+}
@@ -0,0 +1,15 @@
+package com.openclassrooms.starterjwt.payload.response;
+
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class SessionBatchResponse {
+  private List<SessionDto> sessions;
+
+  private List<BatchItemError> errors;
+}
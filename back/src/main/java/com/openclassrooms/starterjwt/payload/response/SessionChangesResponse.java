@@ -0,0 +1,18 @@
+package com.openclassrooms.starterjwt.payload.response;
+
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class SessionChangesResponse {
+  private List<SessionDto> updated;
+
+  private List<Long> deleted;
+
+  private LocalDateTime watermark;
+}
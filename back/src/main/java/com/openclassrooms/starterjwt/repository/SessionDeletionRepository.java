@@ -0,0 +1,22 @@
+package com.openclassrooms.starterjwt.repository;
+
+import com.openclassrooms.starterjwt.models.SessionDeletion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface SessionDeletionRepository extends JpaRepository<SessionDeletion, Long> {
+    @Query("SELECT d.sessionId FROM SessionDeletion d WHERE d.deletedAt >= :since ORDER BY d.deletedAt ASC, d.id ASC")
+    List<Long> findSessionIdsDeletedSince(@Param("since") LocalDateTime since);
+
+    // Range delete on idx_session_deletions_deleted_at
+    @Modifying
+    @Query("DELETE FROM SessionDeletion d WHERE d.deletedAt < :before")
+    int deleteDeletedBefore(@Param("before") LocalDateTime before);
+}
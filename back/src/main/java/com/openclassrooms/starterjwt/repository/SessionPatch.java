@@ -0,0 +1,42 @@
+package com.openclassrooms.starterjwt.repository;
+
+import com.openclassrooms.starterjwt.models.Teacher;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+import java.util.Set;
+
+/**
+ * Field-level update of a session; null fields are left unchanged.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SessionPatch {
+    private String name;
+
+    private Date date;
+
+    private String description;
+
+    private Teacher teacher;
+
+    private Integer capacity;
+
+    // Replacement participants, null to keep the current ones
+    private Set<Long> userIds;
+
+    private Integer seatsTaken;
+
+    // Expected version of the session, null to apply the patch whatever the version
+    private Long version;
+
+    public boolean isEmpty() {
+        return this.name == null && this.date == null && this.description == null && this.teacher == null
+                && this.capacity == null && this.userIds == null;
+    }
+}
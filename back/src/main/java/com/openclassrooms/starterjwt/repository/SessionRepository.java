@@ -1,9 +1,116 @@
 package com.openclassrooms.starterjwt.repository;
 
 import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.repository.projection.SessionParticipantView;
+import com.openclassrooms.starterjwt.repository.projection.SessionView;
+import com.openclassrooms.starterjwt.repository.projection.VersionView;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
-public interface SessionRepository  extends JpaRepository<Session, Long> {
+public interface SessionRepository  extends JpaRepository<Session, Long>, SessionRepositoryCustom {
+    String SELECT_VIEW = "SELECT s.id AS id, s.name AS name, s.date AS date, s.description AS description, "
+            + "s.teacher.id AS teacherId, s.series.id AS seriesId, s.capacity AS capacity, s.seatsTaken AS seatsTaken, "
+            + "s.createdAt AS createdAt, s.updatedAt AS updatedAt, s.version AS version FROM Session s ";
+
+    String ORDER_BY_DATE = " ORDER BY s.date ASC, s.id ASC";
+
+    String AFTER_UNTIL = "(s.date > :date OR (s.date = :date AND s.id > :id)) AND s.date < :to";
+
+    String SELECT_VERSION = "SELECT COUNT(s) AS count, MAX(s.id) AS maxId, MAX(s.updatedAt) AS lastUpdated, "
+            + "SUM(s.version) AS versionSum FROM Session s ";
+
+    @Query(SELECT_VIEW + ORDER_BY_DATE)
+    List<SessionView> findAllViews();
+
+    @Query(SELECT_VIEW + ORDER_BY_DATE)
+    List<SessionView> findViews(Pageable pageable);
+
+    @Query(SELECT_VIEW + "WHERE s.date > :date OR (s.date = :date AND s.id > :id)" + ORDER_BY_DATE)
+    List<SessionView> findViewsAfter(@Param("date") Date date, @Param("id") Long id, Pageable pageable);
+
+    // Served by idx_sessions_date (date, id)
+    @Query(SELECT_VIEW + "WHERE " + AFTER_UNTIL + ORDER_BY_DATE)
+    List<SessionView> findViewsBetween(@Param("date") Date date, @Param("id") Long id, @Param("to") Date to, Pageable pageable);
+
+    // Served by idx_sessions_teacher_date (teacher_id, date)
+    @Query(SELECT_VIEW + "WHERE s.teacher.id = :teacherId AND " + AFTER_UNTIL + ORDER_BY_DATE)
+    List<SessionView> findViewsByTeacherBetween(@Param("teacherId") Long teacherId,
+                                                @Param("date") Date date, @Param("id") Long id, @Param("to") Date to,
+                                                Pageable pageable);
+
+    // Driven by idx_participate_user (user_id, session_id), then primary key lookups on SESSIONS:
+    // the cost follows the bookings of the user, not the size of the catalogue
+    @Query(value = "SELECT s.id AS id, s.name AS name, s.date AS date, s.description AS description, "
+            + "s.teacher_id AS teacherId, s.series_id AS seriesId, s.capacity AS capacity, s.seats_taken AS seatsTaken, "
+            + "s.created_at AS createdAt, s.updated_at AS updatedAt, s.version AS version "
+            + "FROM PARTICIPATE p JOIN SESSIONS s ON s.id = p.session_id "
+            + "WHERE p.user_id = :userId AND (:teacherId IS NULL OR s.teacher_id = :teacherId) "
+            + "AND (s.date > :date OR (s.date = :date AND s.id > :id)) AND s.date < :to "
+            + "ORDER BY s.date ASC, s.id ASC", nativeQuery = true)
+    List<SessionView> findViewsByParticipantBetween(@Param("userId") Long userId, @Param("teacherId") Long teacherId,
+                                                    @Param("date") Date date, @Param("id") Long id, @Param("to") Date to,
+                                                    Pageable pageable);
+
+    @Query(value = SELECT_VIEW + ORDER_BY_DATE, countQuery = "SELECT COUNT(s) FROM Session s")
+    Page<SessionView> findViewPage(Pageable pageable);
+
+    // Served by idx_sessions_updated_at; updatedAt is also set on insert
+    @Query(SELECT_VIEW + "WHERE s.updatedAt >= :since ORDER BY s.updatedAt ASC, s.id ASC")
+    List<SessionView> findViewsUpdatedSince(@Param("since") LocalDateTime since);
+
+    @Query(SELECT_VIEW + "WHERE s.id IN (:ids)")
+    List<SessionView> findViewsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(SELECT_VIEW + "WHERE s.id = :id")
+    Optional<SessionView> findViewById(@Param("id") Long id);
+
+    // The version sum covers several changes within the same timestamp
+    @Query(SELECT_VERSION)
+    VersionView findVersion();
+
+    @Query("SELECT s.version FROM Session s WHERE s.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    @Query(value = "SELECT p.session_id AS sessionId, p.user_id AS userId FROM PARTICIPATE p WHERE p.session_id IN (:ids)", nativeQuery = true)
+    List<SessionParticipantView> findParticipantsBySessionIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT s.id FROM Session s WHERE s.series.id = :seriesId")
+    List<Long> findIdsBySeriesId(@Param("seriesId") Long seriesId);
+
+    @Modifying
+    @Query(value = "UPDATE SESSIONS SET series_id = NULL, updated_at = :now, version = version + 1 WHERE series_id = :seriesId", nativeQuery = true)
+    int detachFromSeries(@Param("seriesId") Long seriesId, @Param("now") LocalDateTime now);
+
+    @Query(value = "SELECT COUNT(*) FROM PARTICIPATE WHERE session_id = :sessionId AND user_id = :userId", nativeQuery = true)
+    long countParticipant(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
+
+    @Modifying
+    @Query(value = "INSERT INTO PARTICIPATE (session_id, user_id) VALUES (:sessionId, :userId)", nativeQuery = true)
+    int addParticipant(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
+
+    @Modifying
+    @Query(value = "DELETE FROM PARTICIPATE WHERE session_id = :sessionId AND user_id = :userId", nativeQuery = true)
+    int removeParticipant(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
+
+    @Modifying
+    @Query("UPDATE Session s SET s.seatsTaken = s.seatsTaken + 1, s.updatedAt = :now, s.version = s.version + 1 "
+            + "WHERE s.id = :id AND (s.capacity IS NULL OR s.seatsTaken < s.capacity)")
+    int reserveSeat(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE Session s SET s.seatsTaken = s.seatsTaken - 1, s.updatedAt = :now, s.version = s.version + 1 "
+            + "WHERE s.id = :id AND s.seatsTaken > 0")
+    int releaseSeat(@Param("id") Long id, @Param("now") LocalDateTime now);
 }
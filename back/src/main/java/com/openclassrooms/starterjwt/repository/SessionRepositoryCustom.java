@@ -0,0 +1,30 @@
+package com.openclassrooms.starterjwt.repository;
+
+import com.openclassrooms.starterjwt.models.Session;
+
+import java.util.List;
+
+public interface SessionRepositoryCustom {
+    /**
+     * Applies the non-null scalar fields of the patch with a single UPDATE.
+     * No row is updated when the session does not exist, does not have the expected version,
+     * or would end up with fewer seats than taken.
+     *
+     * @return the number of updated rows
+     */
+    int patch(Long id, SessionPatch patch);
+
+    /**
+     * Overwrites every scalar field with those of the session in a single UPDATE, participants excepted.
+     * No row is updated when the session does not exist or does not have the expected version (null for any).
+     *
+     * @return the number of updated rows
+     */
+    int replace(Long id, Session session, Long version);
+
+    /**
+     * Inserts the sessions, then their participants, with one JDBC batch per table,
+     * and sets the generated ids on the sessions. The sessions are not attached to the persistence context.
+     */
+    void insertAll(List<Session> sessions);
+}
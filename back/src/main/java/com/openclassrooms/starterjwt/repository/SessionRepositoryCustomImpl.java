@@ -0,0 +1,165 @@
+package com.openclassrooms.starterjwt.repository;
+
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class SessionRepositoryCustomImpl implements SessionRepositoryCustom {
+    private static final String INSERT_SESSION = "INSERT INTO SESSIONS "
+            + "(name, date, description, teacher_id, capacity, series_id, seats_taken, created_at, updated_at, version) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+    private static final String INSERT_PARTICIPANT = "INSERT INTO PARTICIPATE (session_id, user_id) VALUES (?, ?)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int patch(Long id, SessionPatch patch) {
+        CriteriaBuilder builder = this.entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Session> update = builder.createCriteriaUpdate(Session.class);
+        Root<Session> session = update.from(Session.class);
+        List<Predicate> conditions = this.versionedUpdate(builder, update, session, id, patch.getVersion());
+
+        if (patch.getName() != null) {
+            update.set("name", patch.getName());
+        }
+        if (patch.getDate() != null) {
+            update.set("date", patch.getDate());
+        }
+        if (patch.getDescription() != null) {
+            update.set("description", patch.getDescription());
+        }
+        if (patch.getTeacher() != null) {
+            update.set("teacher", patch.getTeacher());
+        }
+        if (patch.getCapacity() != null) {
+            update.set("capacity", patch.getCapacity());
+        }
+        if (patch.getSeatsTaken() != null) {
+            update.set("seatsTaken", patch.getSeatsTaken());
+        }
+
+        // The capacity check is part of the statement, so it holds against concurrent bookings
+        if (patch.getCapacity() != null || patch.getSeatsTaken() != null) {
+            Path<Integer> capacity = session.get("capacity");
+            Expression<Integer> seats = patch.getSeatsTaken() != null
+                    ? builder.literal(patch.getSeatsTaken()) : session.get("seatsTaken");
+            conditions.add(patch.getCapacity() != null
+                    ? builder.le(seats, patch.getCapacity())
+                    : builder.or(builder.isNull(capacity), builder.le(seats, capacity)));
+        }
+
+        update.where(conditions.toArray(new Predicate[0]));
+        return this.entityManager.createQuery(update).executeUpdate();
+    }
+
+    @Override
+    public int replace(Long id, Session replacement, Long version) {
+        CriteriaBuilder builder = this.entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Session> update = builder.createCriteriaUpdate(Session.class);
+        Root<Session> session = update.from(Session.class);
+        List<Predicate> conditions = this.versionedUpdate(builder, update, session, id, version);
+
+        update.set("name", replacement.getName());
+        update.set("date", replacement.getDate());
+        update.set("description", replacement.getDescription());
+        update.set("teacher", replacement.getTeacher());
+        update.set("capacity", replacement.getCapacity());
+        update.set("seatsTaken", replacement.getSeatsTaken());
+
+        update.where(conditions.toArray(new Predicate[0]));
+        return this.entityManager.createQuery(update).executeUpdate();
+    }
+
+    // IDENTITY keys keep Hibernate from batching inserts: the rows are written through JDBC instead,
+    // and the driver returns the keys of the whole batch (Connector/J also for rewritten batches)
+    @Override
+    public void insertAll(List<Session> sessions) {
+        // Pending entity changes, such as a new series, must reach the database before the rows referencing them
+        this.entityManager.flush();
+        LocalDateTime now = LocalDateTime.now();
+
+        List<Long> ids = this.jdbcTemplate.execute((ConnectionCallback<List<Long>>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SESSION, Statement.RETURN_GENERATED_KEYS)) {
+                for (Session session : sessions) {
+                    statement.setString(1, session.getName());
+                    statement.setTimestamp(2, new Timestamp(session.getDate().getTime()));
+                    statement.setString(3, session.getDescription());
+                    statement.setObject(4, session.getTeacher() != null ? session.getTeacher().getId() : null, Types.BIGINT);
+                    statement.setObject(5, session.getCapacity(), Types.INTEGER);
+                    statement.setObject(6, session.getSeries() != null ? session.getSeries().getId() : null, Types.BIGINT);
+                    statement.setInt(7, session.getSeatsTaken());
+                    statement.setTimestamp(8, Timestamp.valueOf(now));
+                    statement.setTimestamp(9, Timestamp.valueOf(now));
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+
+                List<Long> keys = new ArrayList<>();
+                try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
+                    while (generatedKeys.next()) {
+                        keys.add(generatedKeys.getLong(1));
+                    }
+                }
+                return keys;
+            }
+        });
+        if (ids == null || ids.size() != sessions.size()) {
+            throw new IncorrectResultSizeDataAccessException(sessions.size(), ids == null ? 0 : ids.size());
+        }
+
+        List<Object[]> participants = new ArrayList<>();
+        for (int i = 0; i < sessions.size(); i++) {
+            Session session = sessions.get(i);
+            session.setId(ids.get(i)).setCreatedAt(now).setUpdatedAt(now).setVersion(0L);
+            if (session.getUsers() != null) {
+                for (User user : session.getUsers()) {
+                    participants.add(new Object[]{session.getId(), user.getId()});
+                }
+            }
+        }
+        if (!participants.isEmpty()) {
+            this.jdbcTemplate.batchUpdate(INSERT_PARTICIPANT, participants);
+        }
+    }
+
+    // Bulk updates bypass @Version and @UpdateTimestamp, both are maintained here
+    private List<Predicate> versionedUpdate(CriteriaBuilder builder, CriteriaUpdate<Session> update, Root<Session> session,
+                                            Long id, Long version) {
+        Path<Long> current = session.get("version");
+        update.set(current, builder.sum(current, 1L));
+        update.set("updatedAt", LocalDateTime.now());
+
+        List<Predicate> conditions = new ArrayList<>();
+        conditions.add(builder.equal(session.get("id"), id));
+        if (version != null) {
+            conditions.add(builder.equal(current, version));
+        }
+
+        return conditions;
+    }
+}
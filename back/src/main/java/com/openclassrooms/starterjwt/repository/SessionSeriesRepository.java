@@ -0,0 +1,23 @@
+package com.openclassrooms.starterjwt.repository;
+
+import com.openclassrooms.starterjwt.models.SessionSeries;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface SessionSeriesRepository extends JpaRepository<SessionSeries, Long> {
+    // Series with occurrences left to store before the horizon
+    @Query("SELECT s FROM SessionSeries s WHERE s.materializedUntil < :horizon "
+            + "AND (s.endAt IS NULL OR s.materializedUntil < s.endAt)")
+    List<SessionSeries> findDueBefore(@Param("horizon") Date horizon);
+
+    // Series that may have virtual occurrences in [from, to)
+    @Query("SELECT s FROM SessionSeries s WHERE s.materializedUntil < :to AND s.startAt < :to "
+            + "AND (s.endAt IS NULL OR s.endAt > :from)")
+    List<SessionSeries> findVirtualBetween(@Param("from") Date from, @Param("to") Date to);
+}
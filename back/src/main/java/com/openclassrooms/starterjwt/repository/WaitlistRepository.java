@@ -0,0 +1,36 @@
+package com.openclassrooms.starterjwt.repository;
+
+import com.openclassrooms.starterjwt.models.WaitlistEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.util.Optional;
+
+@Repository
+public interface WaitlistRepository extends JpaRepository<WaitlistEntry, Long> {
+    // Served by the (session_id, id) index: reads a single row whatever the queue length.
+    // Locking read: a concurrent promotion waits for this one, then sees the head it left
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<WaitlistEntry> findFirstBySessionIdOrderByIdAsc(Long sessionId);
+
+    @Modifying
+    @Query("DELETE FROM WaitlistEntry w WHERE w.id = :id")
+    int deleteEntry(@Param("id") Long id);
+
+    @Modifying
+    @Query("DELETE FROM WaitlistEntry w WHERE w.sessionId = :sessionId AND w.userId = :userId")
+    int deleteEntry(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
+
+    @Modifying
+    @Query("DELETE FROM WaitlistEntry w WHERE w.sessionId = :sessionId")
+    int deleteAllBySession(@Param("sessionId") Long sessionId);
+
+    @Modifying
+    @Query("DELETE FROM WaitlistEntry w WHERE w.userId = :userId")
+    int deleteAllByUser(@Param("userId") Long userId);
+}
@@ -0,0 +1,7 @@
+package com.openclassrooms.starterjwt.repository.projection;
+
+public interface SessionParticipantView {
+    Long getSessionId();
+
+    Long getUserId();
+}
@@ -0,0 +1,28 @@
+package com.openclassrooms.starterjwt.repository.projection;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+
+public interface SessionView {
+    Long getId();
+
+    String getName();
+
+    Date getDate();
+
+    String getDescription();
+
+    Long getTeacherId();
+
+    Long getSeriesId();
+
+    Integer getCapacity();
+
+    Integer getSeatsTaken();
+
+    LocalDateTime getCreatedAt();
+
+    LocalDateTime getUpdatedAt();
+
+    Long getVersion();
+}
@@ -0,0 +1,21 @@
+package com.openclassrooms.starterjwt.repository.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * Aggregates that change whenever a row is inserted, updated or deleted.
+ */
+public interface VersionView {
+    Long getCount();
+
+    Long getMaxId();
+
+    LocalDateTime getLastUpdated();
+
+    // Every update increments the version of its row
+    Long getVersionSum();
+
+    default String version() {
+        return getCount() + ":" + getMaxId() + ":" + getLastUpdated() + ":" + getVersionSum();
+    }
+}
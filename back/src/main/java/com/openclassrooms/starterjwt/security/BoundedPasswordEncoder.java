@@ -0,0 +1,131 @@
+package com.openclassrooms.starterjwt.security;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.openclassrooms.starterjwt.exception.ServiceUnavailableException;
+
+/**
+ * Bulkhead around BCrypt: hashing and verification run on a dedicated, bounded pool while the calling request
+ * thread waits for the result. At most threads + queueCapacity request threads can be waiting on BCrypt at once;
+ * any further call fails fast with a 503, which leaves the rest of the servlet pool to cheap requests.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+  private static final Logger logger = LoggerFactory.getLogger(BoundedPasswordEncoder.class);
+
+  private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[aby]?\\$(\\d\\d)\\$");
+
+  private final PasswordEncoder delegate;
+
+  private final int strength;
+
+  private final ThreadPoolExecutor executor;
+
+  private final AtomicLong rejectedCount = new AtomicLong();
+
+  public BoundedPasswordEncoder(int strength, int threads, int queueCapacity) {
+    this(new BCryptPasswordEncoder(strength), strength, threads, queueCapacity);
+  }
+
+  BoundedPasswordEncoder(PasswordEncoder delegate, int strength, int threads, int queueCapacity) {
+    this.delegate = delegate;
+    this.strength = strength;
+
+    BlockingQueue<Runnable> queue = queueCapacity > 0 ? new ArrayBlockingQueue<>(queueCapacity) : new SynchronousQueue<>();
+    AtomicInteger threadCount = new AtomicInteger();
+    this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, queue, runnable -> {
+      Thread thread = new Thread(runnable, "bcrypt-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }, new ThreadPoolExecutor.AbortPolicy());
+  }
+
+  @Override
+  public String encode(CharSequence rawPassword) {
+    return submit(() -> delegate.encode(rawPassword));
+  }
+
+  @Override
+  public boolean matches(CharSequence rawPassword, String encodedPassword) {
+    return submit(() -> delegate.matches(rawPassword, encodedPassword));
+  }
+
+  /**
+   * Any hash whose cost differs from the configured strength is rehashed on the next successful login.
+   */
+  @Override
+  public boolean upgradeEncoding(String encodedPassword) {
+    if (encodedPassword == null) {
+      return false;
+    }
+
+    Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+    return matcher.find() && Integer.parseInt(matcher.group(1)) != strength;
+  }
+
+  public int getQueueDepth() {
+    return executor.getQueue().size();
+  }
+
+  public int getActiveCount() {
+    return executor.getActiveCount();
+  }
+
+  public long getCompletedCount() {
+    return executor.getCompletedTaskCount();
+  }
+
+  public long getRejectedCount() {
+    return rejectedCount.get();
+  }
+
+  @Scheduled(fixedDelayString = "${oc.app.metrics.logEveryMs:60000}")
+  public void logStats() {
+    logger.info("BCrypt pool: active={} queued={} completed={} rejected={}",
+        getActiveCount(), getQueueDepth(), getCompletedCount(), getRejectedCount());
+  }
+
+  public void shutdown() {
+    executor.shutdown();
+  }
+
+  private <T> T submit(Callable<T> task) {
+    Future<T> future;
+    try {
+      future = executor.submit(task);
+    } catch (RejectedExecutionException e) {
+      rejectedCount.incrementAndGet();
+      throw new ServiceUnavailableException();
+    }
+
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new ServiceUnavailableException();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+}
@@ -0,0 +1,112 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.jsonwebtoken.Claims;
+
+/**
+ * Keeps the claims of recently verified tokens so that repeat requests skip the signature check.
+ * Entries are keyed by the SHA-256 of the token and expire with the token itself.
+ */
+@Component
+public class JwtClaimsCache {
+  private static final Logger logger = LoggerFactory.getLogger(JwtClaimsCache.class);
+
+  private final JwtUtils jwtUtils;
+
+  private final Cache<String, Claims> cache;
+
+  public JwtClaimsCache(JwtUtils jwtUtils, @Value("${oc.app.jwtCache.maximumSize:10000}") long maximumSize) {
+    this.jwtUtils = jwtUtils;
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfter(new UntilTokenExpiration())
+        .recordStats()
+        .build();
+  }
+
+  /**
+   * @return the claims of a valid token, null otherwise
+   */
+  public Claims getValidatedClaims(String token) {
+    String key = hash(token);
+    Claims claims = cache.getIfPresent(key);
+    if (claims != null && !isExpired(claims)) {
+      return claims;
+    }
+
+    claims = jwtUtils.parseValidatedClaims(token);
+    if (claims != null && claims.getExpiration() != null) {
+      cache.put(key, claims);
+    }
+
+    return claims;
+  }
+
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  @Scheduled(fixedDelayString = "${oc.app.metrics.logEveryMs:60000}")
+  public void logStats() {
+    logger.info("JWT claims cache: hits={} misses={} size={}", getHitCount(), getMissCount(), getSize());
+  }
+
+  public long getHitCount() {
+    return cache.stats().hitCount();
+  }
+
+  public long getMissCount() {
+    return cache.stats().missCount();
+  }
+
+  public long getSize() {
+    return cache.estimatedSize();
+  }
+
+  private static boolean isExpired(Claims claims) {
+    return claims.getExpiration().before(new Date());
+  }
+
+  private static String hash(String token) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+      return Base64.getEncoder().encodeToString(digest);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static class UntilTokenExpiration implements Expiry<String, Claims> {
+    @Override
+    public long expireAfterCreate(String key, Claims claims, long currentTime) {
+      long remainingMs = claims.getExpiration().getTime() - System.currentTimeMillis();
+      return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMs, 0));
+    }
+
+    @Override
+    public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+      return expireAfterCreate(key, claims, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+      return currentDuration;
+    }
+  }
+}
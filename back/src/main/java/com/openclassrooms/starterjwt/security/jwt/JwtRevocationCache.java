@@ -0,0 +1,46 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Local registry of users whose tokens must no longer be accepted.
+ * A revocation only needs to outlive the tokens issued before it, so entries expire after the JWT lifetime.
+ */
+@Component
+public class JwtRevocationCache {
+  private final boolean enabled;
+
+  private final Cache<Long, Long> revokedAt;
+
+  public JwtRevocationCache(@Value("${oc.app.jwtRevocationCheck:true}") boolean enabled,
+                            @Value("${oc.app.jwtExpirationMs}") long jwtExpirationMs) {
+    this.enabled = enabled;
+    this.revokedAt = Caffeine.newBuilder()
+        .expireAfterWrite(jwtExpirationMs, TimeUnit.MILLISECONDS)
+        .build();
+  }
+
+  public void revoke(Long userId) {
+    revokedAt.put(userId, System.currentTimeMillis());
+  }
+
+  /**
+   * @return true when the user was revoked after the token was issued
+   */
+  public boolean isRevoked(Long userId, Date issuedAt) {
+    if (!enabled || userId == null) {
+      return false;
+    }
+
+    Long revocation = revokedAt.getIfPresent(userId);
+    // iat has a one second precision: a token issued in the same second as the revocation is rejected too
+    return revocation != null && (issuedAt == null || issuedAt.getTime() <= revocation);
+  }
+}
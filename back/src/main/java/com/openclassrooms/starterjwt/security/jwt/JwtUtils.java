@@ -16,6 +16,11 @@ import io.jsonwebtoken.*;
 public class JwtUtils {
   private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
 
+  static final String CLAIM_ID = "id";
+  static final String CLAIM_FIRST_NAME = "firstName";
+  static final String CLAIM_LAST_NAME = "lastName";
+  static final String CLAIM_ADMIN = "admin";
+
   @Value("${oc.app.jwtSecret}")
   private String jwtSecret;
 
@@ -28,6 +33,10 @@ public class JwtUtils {
 
     return Jwts.builder()
         .setSubject((userPrincipal.getUsername()))
+        .claim(CLAIM_ID, userPrincipal.getId())
+        .claim(CLAIM_FIRST_NAME, userPrincipal.getFirstName())
+        .claim(CLAIM_LAST_NAME, userPrincipal.getLastName())
+        .claim(CLAIM_ADMIN, Boolean.TRUE.equals(userPrincipal.getAdmin()))
         .setIssuedAt(new Date())
         .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
         .signWith(SignatureAlgorithm.HS512, jwtSecret)
@@ -38,10 +47,39 @@ public class JwtUtils {
     return Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(token).getBody().getSubject();
   }
 
+  /**
+   * Rebuilds the principal from the claims embedded by {@link #generateJwtToken}, without any database lookup.
+   *
+   * @return the principal, or null for tokens issued before the user claims were embedded
+   */
+  public UserDetailsImpl getUserDetailsFromClaims(Claims claims) {
+    Number id = claims.get(CLAIM_ID, Number.class);
+    if (id == null) {
+      return null;
+    }
+
+    return UserDetailsImpl
+        .builder()
+        .id(id.longValue())
+        .username(claims.getSubject())
+        .firstName(claims.get(CLAIM_FIRST_NAME, String.class))
+        .lastName(claims.get(CLAIM_LAST_NAME, String.class))
+        .admin(Boolean.TRUE.equals(claims.get(CLAIM_ADMIN, Boolean.class)))
+        .build();
+  }
+
   public boolean validateJwtToken(String authToken) {
+    return parseValidatedClaims(authToken) != null;
+  }
+
+  /**
+   * Parses and verifies the token once.
+   *
+   * @return the claims of a valid token, null otherwise
+   */
+  public Claims parseValidatedClaims(String authToken) {
     try {
-      Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(authToken);
-      return true;
+      return Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(authToken).getBody();
     } catch (SignatureException e) {
       logger.error("Invalid JWT signature: {}", e.getMessage());
     } catch (MalformedJwtException e) {
@@ -54,6 +92,6 @@ public class JwtUtils {
       logger.error("JWT claims string is empty: {}", e.getMessage());
     }
 
-    return false;
+    return null;
   }
 }
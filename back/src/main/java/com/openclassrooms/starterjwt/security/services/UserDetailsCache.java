@@ -0,0 +1,65 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Bounded cache of the principals loaded by {@link UserDetailsServiceImpl}, keyed by email.
+ */
+@Component
+public class UserDetailsCache {
+  private static final Logger logger = LoggerFactory.getLogger(UserDetailsCache.class);
+
+  private final Cache<String, UserDetailsImpl> cache;
+
+  public UserDetailsCache(@Value("${oc.app.userDetailsCache.maximumSize:1000}") long maximumSize,
+                          @Value("${oc.app.userDetailsCache.ttlMs:300000}") long ttlMs) {
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(ttlMs, TimeUnit.MILLISECONDS)
+        .recordStats()
+        .build();
+  }
+
+  /**
+   * Unknown users are not cached: the loader exception is propagated as is.
+   */
+  public UserDetailsImpl get(String email, Function<String, UserDetailsImpl> loader) {
+    return cache.get(email, loader);
+  }
+
+  public void evict(String email) {
+    cache.invalidate(email);
+  }
+
+  public void evict(Long userId) {
+    // Deletions are rare, a scan of the bounded cache avoids loading the user to learn its email
+    cache.asMap().values().removeIf(userDetails -> userId.equals(userDetails.getId()));
+  }
+
+  @Scheduled(fixedDelayString = "${oc.app.metrics.logEveryMs:60000}")
+  public void logStats() {
+    logger.info("UserDetails cache: hits={} misses={} hitRate={}", getHitCount(), getMissCount(), getHitRate());
+  }
+
+  public long getHitCount() {
+    return cache.stats().hitCount();
+  }
+
+  public long getMissCount() {
+    return cache.stats().missCount();
+  }
+
+  public double getHitRate() {
+    return cache.stats().hitRate();
+  }
+}
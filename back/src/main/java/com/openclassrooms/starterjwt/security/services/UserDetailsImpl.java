@@ -1,10 +1,11 @@
 package com.openclassrooms.starterjwt.security.services;
 
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.List;
 import java.util.Objects;
 
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
@@ -32,8 +33,11 @@ public class UserDetailsImpl implements UserDetails {
   @JsonIgnore
   private String password;  
   
-  public Collection<? extends GrantedAuthority> getAuthorities() {        
-      return new HashSet<GrantedAuthority>();
+  public Collection<? extends GrantedAuthority> getAuthorities() {
+      if (Boolean.TRUE.equals(admin)) {
+        return List.of(new SimpleGrantedAuthority("ROLE_USER"), new SimpleGrantedAuthority("ROLE_ADMIN"));
+      }
+      return List.of(new SimpleGrantedAuthority("ROLE_USER"));
   }
 
   @Override
@@ -0,0 +1,27 @@
+package com.openclassrooms.starterjwt.services;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class SessionChangeEvent {
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED,
+        PARTICIPATED,
+        WAITLISTED,
+        LEFT
+    }
+
+    private Type type;
+
+    private Long sessionId;
+
+    private Long userId;
+}
@@ -0,0 +1,46 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.repository.projection.SessionView;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Opaque keyset position in the (date, id) ordering of sessions.
+ */
+@Getter
+public class SessionCursor {
+    private final Date date;
+
+    private final Long id;
+
+    public SessionCursor(Date date, Long id) {
+        this.date = date;
+        this.id = id;
+    }
+
+    public static SessionCursor of(SessionView session) {
+        return new SessionCursor(session.getDate(), session.getId());
+    }
+
+    public static SessionCursor decode(String token) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = decoded.split(":");
+            if (parts.length != 2) {
+                throw new BadRequestException();
+            }
+            return new SessionCursor(new Date(Long.parseLong(parts[0])), Long.valueOf(parts[1]));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException();
+        }
+    }
+
+    public String encode() {
+        String raw = this.date.getTime() + ":" + this.id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
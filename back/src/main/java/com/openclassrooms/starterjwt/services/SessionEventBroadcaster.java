@@ -0,0 +1,269 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.exception.ServiceUnavailableException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fans session changes out to the SSE subscribers of /api/session/stream.
+ * Publishing only enqueues: each subscriber has a bounded buffer drained by a small shared pool,
+ * and a subscriber whose buffer overflows is disconnected instead of slowing everybody down.
+ * A send blocked for longer than the write timeout disconnects its subscriber and the pool gets
+ * a replacement thread, so that a stalled peer does not hold back the others.
+ * Idle connections hold no thread, they are parked by the servlet container's async support.
+ */
+@Component
+public class SessionEventBroadcaster {
+    private static final Logger logger = LoggerFactory.getLogger(SessionEventBroadcaster.class);
+
+    private static final Object HEARTBEAT = new Object();
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    private final int bufferSize;
+
+    private final int maxSubscribers;
+
+    private final long timeoutMs;
+
+    private final long writeTimeoutNanos;
+
+    private final ThreadPoolExecutor dispatcher;
+
+    private final ScheduledExecutorService heartbeat;
+
+    public SessionEventBroadcaster(@Value("${oc.app.session.stream.bufferSize:64}") int bufferSize,
+                                   @Value("${oc.app.session.stream.maxSubscribers:10000}") int maxSubscribers,
+                                   @Value("${oc.app.session.stream.timeoutMs:1800000}") long timeoutMs,
+                                   @Value("${oc.app.session.stream.dispatcherThreads:2}") int dispatcherThreads,
+                                   @Value("${oc.app.session.stream.heartbeatMs:30000}") long heartbeatMs,
+                                   @Value("${oc.app.session.stream.writeTimeoutMs:5000}") long writeTimeoutMs) {
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMs = timeoutMs;
+        this.writeTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(writeTimeoutMs);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.dispatcher = new ThreadPoolExecutor(dispatcherThreads, dispatcherThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "session-stream-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-stream-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.heartbeat.scheduleAtFixedRate(this::sendHeartbeat, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+        long watchdogMs = Math.max(writeTimeoutMs / 2, 1);
+        this.heartbeat.scheduleAtFixedRate(this::evictStalled, watchdogMs, watchdogMs, TimeUnit.MILLISECONDS);
+    }
+
+    public SseEmitter subscribe() {
+        return this.subscribe(new SseEmitter(this.timeoutMs));
+    }
+
+    SseEmitter subscribe(SseEmitter emitter) {
+        if (this.subscribers.size() >= this.maxSubscribers) {
+            throw new ServiceUnavailableException();
+        }
+
+        Subscriber subscriber = new Subscriber(emitter, new ArrayBlockingQueue<>(this.bufferSize));
+        emitter.onCompletion(() -> this.subscribers.remove(subscriber));
+        emitter.onTimeout(() -> this.subscribers.remove(subscriber));
+        emitter.onError(error -> this.subscribers.remove(subscriber));
+        this.subscribers.add(subscriber);
+
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return this.subscribers.size();
+    }
+
+    // Runs after commit so that subscribers never see a change that was rolled back
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSessionChange(SessionChangeEvent event) {
+        this.broadcast(event);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSessionsImported(SessionsImportedEvent event) {
+        this.broadcast(event);
+    }
+
+    void sendHeartbeat() {
+        for (Subscriber subscriber : this.subscribers) {
+            // A full buffer already means the next event evicts this subscriber
+            if (subscriber.queue.offer(HEARTBEAT)) {
+                this.schedule(subscriber);
+            }
+        }
+    }
+
+    /**
+     * Disconnects the subscribers whose send has been blocked for longer than the write timeout.
+     * The blocked thread cannot be interrupted, so the pool grows by one until the send returns.
+     */
+    void evictStalled() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : this.subscribers) {
+            synchronized (subscriber) {
+                long since = subscriber.sendingSince;
+                if (since == 0 || now - since <= this.writeTimeoutNanos || subscriber.stalled) {
+                    continue;
+                }
+                subscriber.stalled = true;
+                this.resizeDispatcher(1);
+            }
+
+            logger.warn("Disconnecting stalled session stream subscriber");
+            this.evict(subscriber);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        this.heartbeat.shutdownNow();
+        this.dispatcher.shutdownNow();
+        this.subscribers.forEach(Subscriber::complete);
+        this.subscribers.clear();
+    }
+
+    private void broadcast(Object event) {
+        for (Subscriber subscriber : this.subscribers) {
+            if (subscriber.queue.offer(event)) {
+                this.schedule(subscriber);
+            } else {
+                logger.warn("Disconnecting slow session stream subscriber");
+                this.evict(subscriber);
+            }
+        }
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.scheduled.compareAndSet(false, true)) {
+            this.dispatcher.execute(() -> this.drain(subscriber));
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            Object item;
+            while (!subscriber.closed && (item = subscriber.queue.poll()) != null) {
+                subscriber.sendingSince = System.nanoTime();
+                subscriber.emitter.send(toSse(item));
+                this.endSend(subscriber);
+            }
+        } catch (IOException | IllegalStateException e) {
+            this.evict(subscriber);
+        } finally {
+            this.endSend(subscriber);
+            subscriber.scheduled.set(false);
+        }
+
+        if (subscriber.closed) {
+            subscriber.complete();
+        } else if (!subscriber.queue.isEmpty()) {
+            // An event enqueued while the flag was still set would otherwise wait for the next one
+            this.schedule(subscriber);
+        }
+    }
+
+    // Gives back the replacement thread once a stalled send returns
+    private void endSend(Subscriber subscriber) {
+        synchronized (subscriber) {
+            if (subscriber.sendingSince != 0) {
+                subscriber.sendingSince = 0;
+                if (subscriber.stalled) {
+                    this.resizeDispatcher(-1);
+                }
+            }
+        }
+    }
+
+    private synchronized void resizeDispatcher(int delta) {
+        int size = this.dispatcher.getCorePoolSize() + delta;
+        // The maximum size may never be below the core size
+        if (delta > 0) {
+            this.dispatcher.setMaximumPoolSize(size);
+            this.dispatcher.setCorePoolSize(size);
+        } else {
+            this.dispatcher.setCorePoolSize(size);
+            this.dispatcher.setMaximumPoolSize(size);
+        }
+    }
+
+    // The emitter is completed by the dispatcher: completing it here would wait for the send in progress
+    private void evict(Subscriber subscriber) {
+        if (this.subscribers.remove(subscriber)) {
+            subscriber.closed = true;
+            subscriber.queue.clear();
+            this.schedule(subscriber);
+        }
+    }
+
+    private static SseEmitter.SseEventBuilder toSse(Object item) {
+        if (item == HEARTBEAT) {
+            return SseEmitter.event().comment("heartbeat");
+        }
+
+        if (item instanceof SessionsImportedEvent) {
+            return SseEmitter.event().name("imported").data(item, MediaType.APPLICATION_JSON);
+        }
+
+        SessionChangeEvent event = (SessionChangeEvent) item;
+        return SseEmitter.event()
+                .name(event.getType().name().toLowerCase())
+                .data(event, MediaType.APPLICATION_JSON);
+    }
+
+    private static class Subscriber {
+        private final SseEmitter emitter;
+
+        private final BlockingQueue<Object> queue;
+
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private final AtomicBoolean completed = new AtomicBoolean();
+
+        private volatile boolean closed;
+
+        // System.nanoTime() at the start of the send in progress, 0 when idle
+        private volatile long sendingSince;
+
+        // Set under the subscriber's lock once the watchdog has given its thread a replacement
+        private boolean stalled;
+
+        private Subscriber(SseEmitter emitter, BlockingQueue<Object> queue) {
+            this.emitter = emitter;
+            this.queue = queue;
+        }
+
+        private void complete() {
+            if (this.completed.compareAndSet(false, true)) {
+                this.emitter.complete();
+            }
+        }
+    }
+}
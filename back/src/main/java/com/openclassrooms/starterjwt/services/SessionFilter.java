@@ -0,0 +1,58 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Date;
+
+/**
+ * Optional criteria of a session search: a [from, to) date range, a teacher and a participant.
+ */
+@Getter
+public class SessionFilter {
+    // Open bounds are replaced by sentinels so that every search is a range scan on the date indexes
+    static final Date BEGINNING = new Date(0);
+
+    static final Date END = Date.from(LocalDate.of(9999, 12, 31).atStartOfDay(ZoneOffset.UTC).toInstant());
+
+    private final Date from;
+
+    private final Date to;
+
+    private final Long teacherId;
+
+    private final Long participantId;
+
+    public SessionFilter(Date from, Date to, Long teacherId, Long participantId) {
+        if (from != null && to != null && !from.before(to)) {
+            throw new BadRequestException();
+        }
+
+        this.from = from;
+        this.to = to;
+        this.teacherId = teacherId;
+        this.participantId = participantId;
+    }
+
+    public boolean isEmpty() {
+        return this.from == null && this.to == null && this.teacherId == null && this.participantId == null;
+    }
+
+    /**
+     * Lower keyset bound of the search: the cursor when it lies inside the range, the start of the range otherwise.
+     */
+    public SessionCursor start(SessionCursor cursor) {
+        SessionCursor start = new SessionCursor(this.from != null ? this.from : BEGINNING, 0L);
+        if (cursor != null && !cursor.getDate().before(start.getDate())) {
+            return cursor;
+        }
+
+        return start;
+    }
+
+    public Date end() {
+        return this.to != null ? this.to : END;
+    }
+}
@@ -0,0 +1,76 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.models.SessionSeries;
+import com.openclassrooms.starterjwt.repository.projection.SessionView;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+
+/**
+ * An occurrence of a series that is not stored yet: it has no id and no participants.
+ */
+public class SessionOccurrence implements SessionView {
+    private final SessionSeries series;
+
+    private final Date date;
+
+    public SessionOccurrence(SessionSeries series, Date date) {
+        this.series = series;
+        this.date = date;
+    }
+
+    @Override
+    public Long getId() {
+        return null;
+    }
+
+    @Override
+    public String getName() {
+        return this.series.getName();
+    }
+
+    @Override
+    public Date getDate() {
+        return this.date;
+    }
+
+    @Override
+    public String getDescription() {
+        return this.series.getDescription();
+    }
+
+    @Override
+    public Long getTeacherId() {
+        return this.series.getTeacher() != null ? this.series.getTeacher().getId() : null;
+    }
+
+    @Override
+    public Long getSeriesId() {
+        return this.series.getId();
+    }
+
+    @Override
+    public Integer getCapacity() {
+        return this.series.getCapacity();
+    }
+
+    @Override
+    public Integer getSeatsTaken() {
+        return 0;
+    }
+
+    @Override
+    public LocalDateTime getCreatedAt() {
+        return null;
+    }
+
+    @Override
+    public Long getVersion() {
+        return null;
+    }
+
+    @Override
+    public LocalDateTime getUpdatedAt() {
+        return null;
+    }
+}
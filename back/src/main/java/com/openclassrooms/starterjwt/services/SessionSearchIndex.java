@@ -0,0 +1,173 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.projection.SessionView;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory inverted index over session names and descriptions.
+ * Rebuilt from the database at startup, then kept up to date from committed session changes.
+ * Terms are lower-cased and stripped of accents; the last term of a query also matches as a prefix.
+ */
+@Component
+public class SessionSearchIndex {
+    private static final int NAME_WEIGHT = 3;
+
+    private static final int REBUILD_BATCH_SIZE = 500;
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final Pattern ACCENTS = Pattern.compile("\\p{M}+");
+
+    private final SessionRepository sessionRepository;
+
+    // term -> (session id -> weight of the term in that session)
+    private final NavigableMap<String, Map<Long, Integer>> postings = new ConcurrentSkipListMap<>();
+
+    private final Map<Long, Map<String, Integer>> documents = new ConcurrentHashMap<>();
+
+    public SessionSearchIndex(SessionRepository sessionRepository) {
+        this.sessionRepository = sessionRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        this.postings.clear();
+        this.documents.clear();
+
+        List<SessionView> batch = this.sessionRepository.findViews(PageRequest.of(0, REBUILD_BATCH_SIZE));
+        while (!batch.isEmpty()) {
+            batch.forEach(this::index);
+            SessionView last = batch.get(batch.size() - 1);
+            batch = batch.size() < REBUILD_BATCH_SIZE
+                    ? Collections.emptyList()
+                    : this.sessionRepository.findViewsAfter(last.getDate(), last.getId(), PageRequest.of(0, REBUILD_BATCH_SIZE));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSessionChange(SessionChangeEvent event) {
+        switch (event.getType()) {
+            case CREATED:
+            case UPDATED:
+                this.sessionRepository.findViewById(event.getSessionId()).ifPresentOrElse(
+                        this::index, () -> this.remove(event.getSessionId()));
+                break;
+            case DELETED:
+                this.remove(event.getSessionId());
+                break;
+            default:
+                // Participation changes do not touch the indexed text
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSessionsImported(SessionsImportedEvent event) {
+        if (!event.getSessionIds().isEmpty()) {
+            this.sessionRepository.findViewsByIdIn(event.getSessionIds()).forEach(this::index);
+        }
+    }
+
+    public synchronized void index(SessionView session) {
+        this.remove(session.getId());
+
+        Map<String, Integer> terms = new HashMap<>();
+        tokenize(session.getName()).forEach(term -> terms.merge(term, NAME_WEIGHT, Integer::sum));
+        tokenize(session.getDescription()).forEach(term -> terms.merge(term, 1, Integer::sum));
+
+        terms.forEach((term, weight) ->
+                this.postings.computeIfAbsent(term, key -> new ConcurrentHashMap<>()).put(session.getId(), weight));
+        this.documents.put(session.getId(), terms);
+    }
+
+    public synchronized void remove(Long sessionId) {
+        Map<String, Integer> terms = this.documents.remove(sessionId);
+        if (terms == null) {
+            return;
+        }
+
+        for (String term : terms.keySet()) {
+            this.postings.computeIfPresent(term, (key, sessions) -> {
+                sessions.remove(sessionId);
+                return sessions.isEmpty() ? null : sessions;
+            });
+        }
+    }
+
+    /**
+     * Ids of the sessions matching the query, best match first, scored with tf-idf.
+     */
+    public List<Long> search(String query, int limit) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        String prefix = tokens.get(tokens.size() - 1);
+        Set<String> terms = new LinkedHashSet<>(tokens.subList(0, tokens.size() - 1));
+        terms.remove(prefix);
+        terms.add(prefix);
+
+        int documentCount = Math.max(this.documents.size(), 1);
+        Map<Long, Double> scores = new HashMap<>();
+        for (String term : terms) {
+            Map<String, Map<Long, Integer>> matches = term.equals(prefix)
+                    ? this.postings.subMap(term, true, term + Character.MAX_VALUE, false)
+                    : this.postings.subMap(term, true, term, true);
+
+            // A session matching several expansions of the prefix counts its best one
+            Map<Long, Double> termScores = new HashMap<>();
+            for (Map<Long, Integer> sessions : matches.values()) {
+                double idf = Math.log(1 + (double) documentCount / sessions.size());
+                sessions.forEach((sessionId, weight) -> termScores.merge(sessionId, weight * idf, Math::max));
+            }
+            termScores.forEach((sessionId, score) -> scores.merge(sessionId, score, Double::sum));
+        }
+
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    public int size() {
+        return this.documents.size();
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return Collections.emptyList();
+        }
+
+        String normalized = ACCENTS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("").toLowerCase();
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATORS.split(normalized)) {
+            if (token.length() > 1) {
+                tokens.add(token);
+            }
+        }
+
+        return tokens;
+    }
+}
@@ -0,0 +1,43 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.models.SessionSeries;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Expands the recurrence rule of a series over a date range.
+ * The first occurrence is computed directly, so the cost depends on the range and not on the age of the series.
+ */
+public final class SessionSeriesExpander {
+    private SessionSeriesExpander() {
+    }
+
+    /**
+     * Dates of the occurrences in [from, to), in order. Occurrences keep the wall-clock time of startAt across DST changes.
+     */
+    public static List<Date> occurrences(SessionSeries series, Date from, Date to) {
+        Date end = series.getEndAt() != null && series.getEndAt().before(to) ? series.getEndAt() : to;
+        ZoneId zone = ZoneId.systemDefault();
+        LocalDateTime start = LocalDateTime.ofInstant(series.getStartAt().toInstant(), zone);
+        LocalDateTime lower = LocalDateTime.ofInstant(from.toInstant(), zone);
+        int interval = series.getIntervalDays();
+
+        long index = lower.isAfter(start) ? ChronoUnit.DAYS.between(start, lower) / interval : 0;
+        List<Date> dates = new ArrayList<>();
+        while (true) {
+            Date date = Date.from(start.plusDays(index * interval).atZone(zone).toInstant());
+            if (!date.before(end)) {
+                return dates;
+            }
+            if (!date.before(from)) {
+                dates.add(date);
+            }
+            index++;
+        }
+    }
+}
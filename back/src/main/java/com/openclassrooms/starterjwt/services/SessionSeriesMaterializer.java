@@ -0,0 +1,67 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.SessionSeries;
+import com.openclassrooms.starterjwt.repository.SessionSeriesRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Stores the occurrences of a series up to a horizon.
+ * Kept apart from SessionSeriesService so that the scheduler gets one transaction per series through the proxy.
+ */
+@Component
+public class SessionSeriesMaterializer {
+    private final SessionSeriesRepository sessionSeriesRepository;
+
+    private final SessionService sessionService;
+
+    public SessionSeriesMaterializer(SessionSeriesRepository sessionSeriesRepository,
+                                     SessionService sessionService) {
+        this.sessionSeriesRepository = sessionSeriesRepository;
+        this.sessionService = sessionService;
+    }
+
+    /**
+     * Runs in its own transaction, so that a failing series does not roll back the others.
+     * A series deleted since it was found due is skipped.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void materializeSeparately(Long seriesId, Date horizon) {
+        this.sessionSeriesRepository.findById(seriesId).ifPresent(series -> this.materialize(series, horizon));
+    }
+
+    /**
+     * Runs in the caller's transaction.
+     */
+    public void materialize(SessionSeries series, Date horizon) {
+        Date from = later(series.getMaterializedUntil(), new Date());
+        List<Session> sessions = SessionSeriesExpander.occurrences(series, from, horizon).stream()
+                .map(date -> Session.builder()
+                        .name(series.getName())
+                        .description(series.getDescription())
+                        .teacher(series.getTeacher())
+                        .capacity(series.getCapacity())
+                        .date(date)
+                        .series(series)
+                        .users(new LinkedHashSet<>())
+                        .build())
+                .collect(Collectors.toList());
+
+        if (!sessions.isEmpty()) {
+            this.sessionService.createAll(sessions);
+        }
+        series.setMaterializedUntil(horizon);
+        this.sessionSeriesRepository.save(series);
+    }
+
+    static Date later(Date first, Date second) {
+        return first.after(second) ? first : second;
+    }
+}
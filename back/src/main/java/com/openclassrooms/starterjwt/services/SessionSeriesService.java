@@ -0,0 +1,146 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.models.SessionSeries;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.SessionSeriesRepository;
+import com.openclassrooms.starterjwt.repository.projection.SessionView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stores the occurrences of each series within a rolling window of windowDays;
+ * later occurrences are expanded on the fly when a timetable is read.
+ */
+@Service
+public class SessionSeriesService {
+    private static final Logger logger = LoggerFactory.getLogger(SessionSeriesService.class);
+
+    private final SessionSeriesRepository sessionSeriesRepository;
+
+    private final SessionRepository sessionRepository;
+
+    private final SessionService sessionService;
+
+    private final SessionSeriesMaterializer sessionSeriesMaterializer;
+
+    @Value("${oc.app.series.windowDays:14}")
+    private int windowDays = 14;
+
+    @Value("${oc.app.series.maxTimetableDays:92}")
+    private int maxTimetableDays = 92;
+
+    public SessionSeriesService(SessionSeriesRepository sessionSeriesRepository,
+                                SessionRepository sessionRepository,
+                                SessionService sessionService,
+                                SessionSeriesMaterializer sessionSeriesMaterializer) {
+        this.sessionSeriesRepository = sessionSeriesRepository;
+        this.sessionRepository = sessionRepository;
+        this.sessionService = sessionService;
+        this.sessionSeriesMaterializer = sessionSeriesMaterializer;
+    }
+
+    @Transactional
+    public SessionSeries create(SessionSeries series) {
+        if (series.getEndAt() != null && !series.getStartAt().before(series.getEndAt())) {
+            throw new BadRequestException();
+        }
+
+        // Occurrences already past when the series is created are never stored
+        series.setMaterializedUntil(new Date());
+        SessionSeries created = this.sessionSeriesRepository.save(series);
+        this.sessionSeriesMaterializer.materialize(created, this.horizon());
+
+        return created;
+    }
+
+    public List<SessionSeries> findAll() {
+        return this.sessionSeriesRepository.findAll();
+    }
+
+    public SessionSeries getById(Long id) {
+        return this.sessionSeriesRepository.findById(id).orElse(null);
+    }
+
+    /**
+     * Applies to the occurrences not stored yet; stored ones are sessions of their own, updated through the session API.
+     */
+    @Transactional
+    public SessionSeries update(Long id, SessionSeries series) {
+        if (series.getEndAt() != null && !series.getStartAt().before(series.getEndAt())) {
+            throw new BadRequestException();
+        }
+
+        SessionSeries existing = this.sessionSeriesRepository.findById(id).orElse(null);
+        if (existing == null) {
+            return null;
+        }
+
+        existing.setName(series.getName())
+                .setDescription(series.getDescription())
+                .setTeacher(series.getTeacher())
+                .setCapacity(series.getCapacity())
+                .setStartAt(series.getStartAt())
+                .setIntervalDays(series.getIntervalDays())
+                .setEndAt(series.getEndAt());
+
+        return this.sessionSeriesRepository.save(existing);
+    }
+
+    @Transactional
+    public void delete(Long id) {
+        this.sessionService.detachFromSeries(id);
+        this.sessionSeriesRepository.deleteById(id);
+    }
+
+    /**
+     * Moves the window forward: stores the occurrences that entered it since the last run.
+     */
+    @Scheduled(fixedDelayString = "${oc.app.series.materializeEveryMs:3600000}")
+    public void materializeDue() {
+        Date horizon = this.horizon();
+        for (SessionSeries series : this.sessionSeriesRepository.findDueBefore(horizon)) {
+            try {
+                this.sessionSeriesMaterializer.materializeSeparately(series.getId(), horizon);
+            } catch (RuntimeException e) {
+                // Left due: retried on the next run
+                logger.error("Could not materialize series {}", series.getId(), e);
+            }
+        }
+    }
+
+    /**
+     * Stored sessions and virtual occurrences in [from, to), in date order.
+     */
+    public List<SessionView> findTimetable(Date from, Date to) {
+        if (!from.before(to) || to.getTime() - from.getTime() > TimeUnit.DAYS.toMillis(this.maxTimetableDays)) {
+            throw new BadRequestException();
+        }
+
+        List<SessionView> sessions = new ArrayList<>(this.sessionRepository.findViewsBetween(from, 0L, to, Pageable.unpaged()));
+        for (SessionSeries series : this.sessionSeriesRepository.findVirtualBetween(from, to)) {
+            Date start = SessionSeriesMaterializer.later(from, series.getMaterializedUntil());
+            SessionSeriesExpander.occurrences(series, start, to)
+                    .forEach(date -> sessions.add(new SessionOccurrence(series, date)));
+        }
+
+        sessions.sort(Comparator.<SessionView>comparingLong(session -> session.getDate().getTime())
+                .thenComparing(SessionView::getId, Comparator.nullsLast(Comparator.naturalOrder())));
+        return sessions;
+    }
+
+    private Date horizon() {
+        return new Date(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(this.windowDays));
+    }
+}
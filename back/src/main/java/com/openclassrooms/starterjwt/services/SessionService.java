@@ -1,14 +1,38 @@
 package com.openclassrooms.starterjwt.services;
 
 import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.exception.ConflictException;
 import com.openclassrooms.starterjwt.exception.NotFoundException;
 import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.SessionDeletion;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.models.WaitlistEntry;
+import com.openclassrooms.starterjwt.repository.SessionDeletionRepository;
+import com.openclassrooms.starterjwt.repository.SessionPatch;
 import com.openclassrooms.starterjwt.repository.SessionRepository;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.repository.projection.SessionParticipantView;
+import com.openclassrooms.starterjwt.repository.projection.SessionView;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -17,62 +41,382 @@ public class SessionService {
 
     private final UserRepository userRepository;
 
-    public SessionService(SessionRepository sessionRepository, UserRepository userRepository) {
+    private final WaitlistService waitlistService;
+
+    private final SessionDeletionRepository sessionDeletionRepository;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final SessionSearchIndex sessionSearchIndex;
+
+    @Value("${oc.app.session.defaultPageSize:20}")
+    private int defaultPageSize = 20;
+
+    @Value("${oc.app.session.maxPageSize:100}")
+    private int maxPageSize = 100;
+
+    @Value("${oc.app.session.maxBatchSize:500}")
+    private int maxBatchSize = 500;
+
+    @Value("${oc.app.session.changes.safetyMarginMs:60000}")
+    private long changesSafetyMarginMs = 60000;
+
+    @Value("${oc.app.session.changes.retentionDays:30}")
+    private int changesRetentionDays = 30;
+
+    public SessionService(SessionRepository sessionRepository,
+                          UserRepository userRepository,
+                          WaitlistService waitlistService,
+                          SessionDeletionRepository sessionDeletionRepository,
+                          ApplicationEventPublisher eventPublisher,
+                          SessionSearchIndex sessionSearchIndex) {
         this.sessionRepository = sessionRepository;
         this.userRepository = userRepository;
+        this.waitlistService = waitlistService;
+        this.sessionDeletionRepository = sessionDeletionRepository;
+        this.eventPublisher = eventPublisher;
+        this.sessionSearchIndex = sessionSearchIndex;
     }
 
     public Session create(Session session) {
-        return this.sessionRepository.save(session);
+        this.countSeats(session);
+        Session created = this.sessionRepository.save(session);
+        this.publish(SessionChangeEvent.Type.CREATED, created.getId(), null);
+
+        return created;
+    }
+
+    /**
+     * Inserts all the sessions in one transaction, with JDBC batches: either every session is created or none is.
+     */
+    @Transactional
+    public List<Session> createAll(List<Session> sessions) {
+        sessions.forEach(this::countSeats);
+        this.sessionRepository.insertAll(sessions);
+        // A single event for the whole batch, rather than one per session
+        this.eventPublisher.publishEvent(new SessionsImportedEvent(
+                sessions.stream().map(Session::getId).collect(Collectors.toList())));
+
+        return sessions;
     }
 
+    public int getMaxBatchSize() {
+        return this.maxBatchSize;
+    }
+
+    public boolean exceedsCapacity(Session session) {
+        int seatsTaken = session.getUsers() != null ? session.getUsers().size() : 0;
+        return session.getCapacity() != null && seatsTaken > session.getCapacity();
+    }
+
+    @Transactional
     public void delete(Long id) {
+        this.waitlistService.clearSession(id);
         this.sessionRepository.deleteById(id);
+        this.sessionDeletionRepository.save(new SessionDeletion().setSessionId(id).setDeletedAt(LocalDateTime.now()));
+        this.publish(SessionChangeEvent.Type.DELETED, id, null);
+    }
+
+    /**
+     * Turns the stored occurrences of a series into standalone sessions, kept with their participants.
+     */
+    @Transactional
+    public void detachFromSeries(Long seriesId) {
+        List<Long> ids = this.sessionRepository.findIdsBySeriesId(seriesId);
+        this.sessionRepository.detachFromSeries(seriesId, LocalDateTime.now());
+        ids.forEach(id -> this.publish(SessionChangeEvent.Type.UPDATED, id, null));
+    }
+
+    public List<SessionView> findAllViews() {
+        return this.sessionRepository.findAllViews();
+    }
+
+    public List<SessionView> findAllAfter(SessionCursor cursor, Integer limit) {
+        PageRequest pageRequest = PageRequest.of(0, this.pageSize(limit));
+        if (cursor == null) {
+            return this.sessionRepository.findViews(pageRequest);
+        }
+
+        return this.sessionRepository.findViewsAfter(cursor.getDate(), cursor.getId(), pageRequest);
+    }
+
+    public List<SessionView> findFiltered(SessionFilter filter, SessionCursor cursor, Integer limit) {
+        PageRequest pageRequest = PageRequest.of(0, this.pageSize(limit));
+        SessionCursor start = filter.start(cursor);
+
+        if (filter.getParticipantId() != null) {
+            return this.sessionRepository.findViewsByParticipantBetween(filter.getParticipantId(), filter.getTeacherId(),
+                    start.getDate(), start.getId(), filter.end(), pageRequest);
+        }
+        if (filter.getTeacherId() != null) {
+            return this.sessionRepository.findViewsByTeacherBetween(filter.getTeacherId(),
+                    start.getDate(), start.getId(), filter.end(), pageRequest);
+        }
+
+        return this.sessionRepository.findViewsBetween(start.getDate(), start.getId(), filter.end(), pageRequest);
+    }
+
+    public List<SessionView> search(String query, Integer limit) {
+        if (query == null || query.isBlank()) {
+            throw new BadRequestException();
+        }
+
+        List<Long> ids = this.sessionSearchIndex.search(query, this.pageSize(limit));
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        // Keeps the ranking of the index; a session deleted since it was ranked is skipped
+        Map<Long, SessionView> views = this.sessionRepository.findViewsByIdIn(ids).stream()
+                .collect(Collectors.toMap(SessionView::getId, Function.identity()));
+        return ids.stream().map(views::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    public Page<SessionView> findPage(int page, Integer size) {
+        if (page < 0) {
+            throw new BadRequestException();
+        }
+
+        return this.sessionRepository.findViewPage(PageRequest.of(page, this.pageSize(size)));
+    }
+
+    /**
+     * Watermark for the next change poll. updatedAt and deletedAt are stamped before commit,
+     * so a change stamped before a poll may only become visible after it: the watermark lags
+     * behind by the safety margin, which must exceed the longest transaction
+     * (spring.transaction.default-timeout), and is floored to the second, the precision of the DATETIME columns.
+     */
+    public LocalDateTime getChangesWatermark() {
+        return LocalDateTime.now().minus(this.changesSafetyMarginMs, ChronoUnit.MILLIS).truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    public List<SessionView> findViewsUpdatedSince(LocalDateTime since) {
+        return this.sessionRepository.findViewsUpdatedSince(since);
+    }
+
+    public List<Long> findDeletedSince(LocalDateTime since) {
+        return this.sessionDeletionRepository.findSessionIdsDeletedSince(since);
+    }
+
+    /**
+     * Tombstones older than the retention period are purged: a client that last synced before it
+     * may have missed deletions and has to reload the full list.
+     */
+    public boolean requiresFullResync(LocalDateTime since) {
+        return since.isBefore(LocalDateTime.now().minusDays(this.changesRetentionDays));
     }
 
-    public List<Session> findAll() {
-        return this.sessionRepository.findAll();
+    @Scheduled(fixedDelayString = "${oc.app.session.changes.purgeEveryMs:3600000}")
+    @Transactional
+    public void purgeDeletions() {
+        this.sessionDeletionRepository.deleteDeletedBefore(LocalDateTime.now().minusDays(this.changesRetentionDays));
+    }
+
+    public Map<Long, List<Long>> findParticipantIds(Collection<Long> sessionIds) {
+        if (sessionIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        return this.sessionRepository.findParticipantsBySessionIdIn(sessionIds).stream()
+                .collect(Collectors.groupingBy(SessionParticipantView::getSessionId,
+                        Collectors.mapping(SessionParticipantView::getUserId, Collectors.toList())));
+    }
+
+    public int pageSize(Integer requested) {
+        if (requested == null) {
+            return this.defaultPageSize;
+        }
+        if (requested < 1) {
+            throw new BadRequestException();
+        }
+
+        return Math.min(requested, this.maxPageSize);
     }
 
     public Session getById(Long id) {
         return this.sessionRepository.findById(id).orElse(null);
     }
 
-    public Session update(Long id, Session session) {
-        session.setId(id);
-        return this.sessionRepository.save(session);
+    public SessionView getViewById(Long id) {
+        return this.sessionRepository.findViewById(id).orElse(null);
+    }
+
+    public String getVersion() {
+        return this.sessionRepository.findVersion().version();
+    }
+
+    /**
+     * @return null when the session does not exist
+     */
+    public Long getVersion(Long id) {
+        return this.sessionRepository.findVersionById(id).orElse(null);
     }
 
-    public void participate(Long id, Long userId) {
-        Session session = this.sessionRepository.findById(id).orElse(null);
-        User user = this.userRepository.findById(userId).orElse(null);
-        if (session == null || user == null) {
+    /**
+     * Overwrites the session with one conditional UPDATE rather than a merge.
+     *
+     * @param version expected version of the session, null to overwrite whatever the version
+     */
+    @Transactional
+    public SessionView update(Long id, Session session, Long version) {
+        this.countSeats(session);
+        if (this.sessionRepository.replace(id, session, version) == 0) {
+            throw this.rejection(id, version);
+        }
+
+        // The UPDATE holds the row lock until commit, participants are replaced under it
+        this.replaceParticipants(id, Optional.ofNullable(session.getUsers()).orElseGet(Collections::emptySet).stream()
+                .map(User::getId)
+                .collect(Collectors.toSet()));
+        List<Long> promoted = this.promoteWaitlisted(id);
+        this.publish(SessionChangeEvent.Type.UPDATED, id, null);
+        promoted.forEach(userId -> this.publish(SessionChangeEvent.Type.PARTICIPATED, id, userId));
+
+        return this.getViewById(id);
+    }
+
+    /**
+     * Scalar fields are written with one UPDATE; participants are only touched when the patch replaces them.
+     */
+    @Transactional
+    public SessionView patch(Long id, SessionPatch patch) {
+        // A no-op would still bump the version and the timestamp, invalidating every client copy
+        if (patch.isEmpty()) {
+            throw new BadRequestException();
+        }
+        if (patch.getUserIds() != null) {
+            patch.setSeatsTaken(patch.getUserIds().size());
+        }
+
+        if (this.sessionRepository.patch(id, patch) == 0) {
+            throw this.rejection(id, patch.getVersion());
+        }
+
+        if (patch.getUserIds() != null) {
+            this.replaceParticipants(id, patch.getUserIds());
+        }
+        // A higher capacity or fewer participants may free seats for the waitlist
+        List<Long> promoted = patch.getCapacity() != null || patch.getUserIds() != null
+                ? this.promoteWaitlisted(id) : Collections.emptyList();
+        this.publish(SessionChangeEvent.Type.UPDATED, id, null);
+        promoted.forEach(userId -> this.publish(SessionChangeEvent.Type.PARTICIPATED, id, userId));
+
+        return this.getViewById(id);
+    }
+
+    @Transactional
+    public ParticipationStatus participate(Long id, Long userId) {
+        if (!this.sessionRepository.existsById(id) || !this.userRepository.existsById(userId)) {
             throw new NotFoundException();
         }
 
-        boolean alreadyParticipate = session.getUsers().stream().anyMatch(o -> o.getId().equals(userId));
-        if(alreadyParticipate) {
+        try {
+            this.sessionRepository.addParticipant(id, userId);
+        } catch (DataIntegrityViolationException e) {
+            // (session_id, user_id) is the primary key of PARTICIPATE
             throw new BadRequestException();
         }
 
-        session.getUsers().add(user);
+        // Conditional increment: concurrent joins serialize on the session row
+        if (this.sessionRepository.reserveSeat(id, LocalDateTime.now()) == 0) {
+            this.sessionRepository.removeParticipant(id, userId);
+            this.waitlistService.enqueue(id, userId);
+            this.publish(SessionChangeEvent.Type.WAITLISTED, id, userId);
+            return ParticipationStatus.WAITLISTED;
+        }
 
-        this.sessionRepository.save(session);
+        // A user who was waitlisted and joins once a seat is free leaves the waitlist
+        this.waitlistService.remove(id, userId);
+        this.publish(SessionChangeEvent.Type.PARTICIPATED, id, userId);
+        return ParticipationStatus.PARTICIPATING;
     }
 
+    @Transactional
     public void noLongerParticipate(Long id, Long userId) {
-        Session session = this.sessionRepository.findById(id).orElse(null);
-        if (session == null) {
+        if (!this.sessionRepository.existsById(id)) {
             throw new NotFoundException();
         }
 
-        boolean alreadyParticipate = session.getUsers().stream().anyMatch(o -> o.getId().equals(userId));
-        if(!alreadyParticipate) {
-            throw new BadRequestException();
+        int removed = this.sessionRepository.removeParticipant(id, userId);
+        if (removed == 0) {
+            if (!this.waitlistService.remove(id, userId)) {
+                throw new BadRequestException();
+            }
+            this.publish(SessionChangeEvent.Type.LEFT, id, userId);
+            return;
         }
 
-        session.setUsers(session.getUsers().stream().filter(user -> !user.getId().equals(userId)).collect(Collectors.toList()));
+        // Releasing first locks the session row, so a join that is about to be waitlisted cannot miss the freed seat
+        this.sessionRepository.releaseSeat(id, LocalDateTime.now());
+        List<Long> promoted = this.promoteWaitlisted(id);
+
+        this.publish(SessionChangeEvent.Type.LEFT, id, userId);
+        promoted.forEach(promotedId -> this.publish(SessionChangeEvent.Type.PARTICIPATED, id, promotedId));
+    }
+
+    /**
+     * Gives the free seats of the session to its waitlist, in order. Must run after the session row is locked.
+     * Entries of users who already participate are dropped.
+     *
+     * @return the promoted users
+     */
+    private List<Long> promoteWaitlisted(Long id) {
+        List<Long> promoted = new ArrayList<>();
+        Optional<WaitlistEntry> head = this.waitlistService.lockHead(id);
+        while (head.isPresent()) {
+            Long userId = head.get().getUserId();
+            if (this.sessionRepository.countParticipant(id, userId) == 0) {
+                if (this.sessionRepository.reserveSeat(id, LocalDateTime.now()) == 0) {
+                    break;
+                }
+                this.sessionRepository.addParticipant(id, userId);
+                promoted.add(userId);
+            }
+
+            this.waitlistService.delete(head.get());
+            head = this.waitlistService.lockHead(id);
+        }
+
+        return promoted;
+    }
+
+    private void publish(SessionChangeEvent.Type type, Long sessionId, Long userId) {
+        this.eventPublisher.publishEvent(new SessionChangeEvent(type, sessionId, userId));
+    }
+
+    // Tells apart why a conditional UPDATE matched no row
+    private RuntimeException rejection(Long id, Long version) {
+        Long current = this.getVersion(id);
+        if (current == null) {
+            return new NotFoundException();
+        }
+        if (version != null && !version.equals(current)) {
+            return new ConflictException();
+        }
+
+        // Fewer seats than participants
+        return new BadRequestException();
+    }
+
+    private void replaceParticipants(Long id, Set<Long> userIds) {
+        Set<Long> current = this.sessionRepository.findParticipantsBySessionIdIn(List.of(id)).stream()
+                .map(SessionParticipantView::getUserId)
+                .collect(Collectors.toSet());
+
+        current.stream().filter(userId -> !userIds.contains(userId))
+                .forEach(userId -> this.sessionRepository.removeParticipant(id, userId));
+        userIds.stream().filter(userId -> !current.contains(userId))
+                .forEach(userId -> {
+                    this.sessionRepository.addParticipant(id, userId);
+                    this.waitlistService.remove(id, userId);
+                });
+    }
+
+    private void countSeats(Session session) {
+        if (this.exceedsCapacity(session)) {
+            throw new BadRequestException();
+        }
 
-        this.sessionRepository.save(session);
+        session.setSeatsTaken(session.getUsers() != null ? session.getUsers().size() : 0);
     }
 }
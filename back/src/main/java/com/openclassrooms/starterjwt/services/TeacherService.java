@@ -2,23 +2,113 @@ package com.openclassrooms.starterjwt.services;
 
 import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Teachers change rarely: the catalogue and the per-id lookups are served from memory.
+ * Cached teachers are shared between requests and must be treated as read-only.
+ */
 @Service
 public class TeacherService {
     private final TeacherRepository teacherRepository;
 
+    private final Map<Long, Teacher> teachersById = new ConcurrentHashMap<>();
+
+    private volatile List<Teacher> catalogue;
+
+    private volatile String catalogueVersion;
+
     public TeacherService(TeacherRepository teacherRepository) {
         this.teacherRepository = teacherRepository;
     }
 
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        this.refresh();
+    }
+
     public List<Teacher> findAll() {
-        return this.teacherRepository.findAll();
+        List<Teacher> teachers = this.catalogue;
+        if (teachers == null) {
+            teachers = this.refresh();
+        }
+
+        return teachers;
+    }
+
+    /**
+     * Version of the cached catalogue, computed when it is loaded.
+     */
+    public String getCatalogueVersion() {
+        String version = this.catalogueVersion;
+        if (version == null || this.catalogue == null) {
+            this.refresh();
+            version = this.catalogueVersion;
+        }
+
+        return version;
     }
 
     public Teacher findById(Long id) {
-        return this.teacherRepository.findById(id).orElse(null);
+        // Unknown ids are not cached: computeIfAbsent stores nothing when the lookup returns null
+        return this.teachersById.computeIfAbsent(id, key -> this.teacherRepository.findById(key).orElse(null));
+    }
+
+    /**
+     * Resolves the given teachers from memory, loading the missing ones with one query.
+     */
+    public Map<Long, Teacher> findAllById(Collection<Long> ids) {
+        Map<Long, Teacher> teachers = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : ids) {
+            Teacher teacher = this.teachersById.get(id);
+            if (teacher != null) {
+                teachers.put(id, teacher);
+            } else {
+                missing.add(id);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            this.teacherRepository.findAllById(missing).forEach(teacher -> {
+                this.teachersById.put(teacher.getId(), teacher);
+                teachers.put(teacher.getId(), teacher);
+            });
+        }
+
+        return teachers;
+    }
+
+    public synchronized List<Teacher> refresh() {
+        List<Teacher> teachers = List.copyOf(this.teacherRepository.findAll());
+        this.teachersById.clear();
+        teachers.forEach(teacher -> this.teachersById.put(teacher.getId(), teacher));
+        this.catalogueVersion = teachers.size() + ":"
+                + teachers.stream().map(Teacher::getId).filter(Objects::nonNull).max(Long::compare).orElse(null) + ":"
+                + teachers.stream().map(Teacher::getUpdatedAt).filter(Objects::nonNull).max(LocalDateTime::compareTo).orElse(null);
+        this.catalogue = teachers;
+
+        return teachers;
+    }
+
+    public void evict(Long id) {
+        this.teachersById.remove(id);
+        this.catalogue = null;
+    }
+
+    public void evictAll() {
+        this.teachersById.clear();
+        this.catalogue = null;
     }
 }
@@ -2,21 +2,58 @@ package com.openclassrooms.starterjwt.services;
 
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.security.jwt.JwtRevocationCache;
+import com.openclassrooms.starterjwt.security.services.UserDetailsCache;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class UserService {
     private final UserRepository userRepository;
 
-    public UserService(UserRepository userRepository) {
+    private final WaitlistService waitlistService;
+
+    private final JwtRevocationCache jwtRevocationCache;
+
+    private final UserDetailsCache userDetailsCache;
+
+    public UserService(UserRepository userRepository,
+                       WaitlistService waitlistService,
+                       JwtRevocationCache jwtRevocationCache,
+                       UserDetailsCache userDetailsCache) {
         this.userRepository = userRepository;
+        this.waitlistService = waitlistService;
+        this.jwtRevocationCache = jwtRevocationCache;
+        this.userDetailsCache = userDetailsCache;
     }
 
+    @Transactional
     public void delete(Long id) {
+        this.waitlistService.clearUser(id);
         this.userRepository.deleteById(id);
+        this.jwtRevocationCache.revoke(id);
+        this.userDetailsCache.evict(id);
     }
 
     public User findById(Long id) {
         return this.userRepository.findById(id).orElse(null);
     }
+
+    /**
+     * Loads all the given users with one query; unknown ids are absent from the result.
+     */
+    public Map<Long, User> findAllById(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        return this.userRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+    }
 }
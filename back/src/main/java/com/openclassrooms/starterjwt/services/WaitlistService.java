@@ -0,0 +1,50 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.models.WaitlistEntry;
+import com.openclassrooms.starterjwt.repository.WaitlistRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+
+@Service
+public class WaitlistService {
+    private final WaitlistRepository waitlistRepository;
+
+    public WaitlistService(WaitlistRepository waitlistRepository) {
+        this.waitlistRepository = waitlistRepository;
+    }
+
+    public WaitlistEntry enqueue(Long sessionId, Long userId) {
+        try {
+            return this.waitlistRepository.save(new WaitlistEntry().setSessionId(sessionId).setUserId(userId));
+        } catch (DataIntegrityViolationException e) {
+            // (session_id, user_id) is unique in WAITLIST
+            throw new BadRequestException();
+        }
+    }
+
+    /**
+     * First entry of the waitlist, locked until the end of the transaction.
+     */
+    public Optional<WaitlistEntry> lockHead(Long sessionId) {
+        return this.waitlistRepository.findFirstBySessionIdOrderByIdAsc(sessionId);
+    }
+
+    public void delete(WaitlistEntry entry) {
+        this.waitlistRepository.deleteEntry(entry.getId());
+    }
+
+    public boolean remove(Long sessionId, Long userId) {
+        return this.waitlistRepository.deleteEntry(sessionId, userId) > 0;
+    }
+
+    public void clearSession(Long sessionId) {
+        this.waitlistRepository.deleteAllBySession(sessionId);
+    }
+
+    public void clearUser(Long userId) {
+        this.waitlistRepository.deleteAllByUser(userId);
+    }
+}
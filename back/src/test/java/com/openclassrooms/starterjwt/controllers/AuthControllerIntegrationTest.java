@@ -0,0 +1,133 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.security.services.UserDetailsCache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {"spring.profiles.active=test"})
+@AutoConfigureMockMvc
+@Transactional
+public class AuthControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
+    private User testUser;
+
+    @BeforeEach
+    public void setup() {
+        // Mot de passe haché avec un coût plus faible que celui configuré (10)
+        testUser = new User();
+        testUser.setEmail("rehash-login@example.com");
+        testUser.setFirstName("Rehash");
+        testUser.setLastName("Login");
+        testUser.setPassword(new BCryptPasswordEncoder(4).encode("password"));
+        testUser.setAdmin(false);
+        testUser = userRepository.save(testUser);
+
+        // Les transactions de test étant annulées, le cache peut contenir l'utilisateur d'un test précédent
+        userDetailsCache.evict(testUser.getEmail());
+    }
+
+    @Test
+    public void testLoginRehashesPasswordWithConfiguredCost() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"rehash-login@example.com\",\"password\":\"password\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", is(testUser.getId().intValue())))
+                .andExpect(jsonPath("$.admin", is(false)));
+
+        entityManager.clear();
+        String storedPassword = userRepository.findByEmail("rehash-login@example.com").get().getPassword();
+        assertTrue(storedPassword.startsWith("$2a$10$"));
+        assertTrue(new BCryptPasswordEncoder().matches("password", storedPassword));
+    }
+
+    @Test
+    public void testLoginReadsUserOnce() throws Exception {
+        // Arrange
+        User admin = new User();
+        admin.setEmail("single-query-login@example.com");
+        admin.setFirstName("Single");
+        admin.setLastName("Query");
+        admin.setPassword(new BCryptPasswordEncoder(10).encode("password"));
+        admin.setAdmin(true);
+        userRepository.save(admin);
+        userDetailsCache.evict(admin.getEmail());
+        entityManager.flush();
+
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        // Act
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"single-query-login@example.com\",\"password\":\"password\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.admin", is(true)));
+
+        // Assert
+        // Le drapeau admin provient du chargement fait par l'authentification
+        assertEquals(1, statistics.getPrepareStatementCount());
+        statistics.setStatisticsEnabled(false);
+    }
+
+    @Test
+    public void testLoginWithWrongPasswordIsUnauthorized() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"rehash-login@example.com\",\"password\":\"wrong\"}"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    public void testRegisterWithTakenEmailIsRejected() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/auth/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"rehash-login@example.com\",\"firstName\":\"Other\",\"lastName\":\"User\",\"password\":\"password\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is("Error: Email is already taken!")));
+    }
+
+    @Test
+    public void testRegisterCreatesUser() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/auth/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"new-user@example.com\",\"firstName\":\"New\",\"lastName\":\"User\",\"password\":\"password\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message", is("User registered successfully!")));
+
+        assertTrue(userRepository.findByEmail("new-user@example.com").isPresent());
+    }
+}
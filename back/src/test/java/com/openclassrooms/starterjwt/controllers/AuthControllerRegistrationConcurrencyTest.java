@@ -0,0 +1,76 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = {"spring.profiles.active=test"})
+@AutoConfigureMockMvc
+public class AuthControllerRegistrationConcurrencyTest {
+
+    private static final int CONTENDERS = 16;
+    private static final String EMAIL = "signup-burst@example.com";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @AfterEach
+    public void cleanup() {
+        userRepository.findByEmail(EMAIL).ifPresent(userRepository::delete);
+    }
+
+    @Test
+    public void testConcurrentRegistrationsCreateSingleUser() throws Exception {
+        // Arrange
+        ExecutorService executor = Executors.newFixedThreadPool(CONTENDERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> statuses = new ArrayList<>();
+        for (int i = 0; i < CONTENDERS; i++) {
+            statuses.add(executor.submit(() -> {
+                start.await();
+                return mockMvc.perform(MockMvcRequestBuilders.post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"" + EMAIL + "\",\"firstName\":\"Burst\",\"lastName\":\"User\",\"password\":\"password\"}"))
+                        .andReturn().getResponse().getStatus();
+            }));
+        }
+
+        // Act
+        start.countDown();
+        int created = 0;
+        int rejected = 0;
+        for (Future<Integer> status : statuses) {
+            int code = status.get();
+            if (code == 200) {
+                created++;
+            } else if (code == 400) {
+                rejected++;
+            }
+        }
+        executor.shutdown();
+
+        // Assert
+        // Une seule inscription aboutit, les autres reçoivent "Email is already taken"
+        assertEquals(1, created);
+        assertEquals(CONTENDERS - 1, rejected);
+        assertEquals(1, userRepository.findAll().stream().filter(user -> EMAIL.equals(user.getEmail())).count());
+    }
+}
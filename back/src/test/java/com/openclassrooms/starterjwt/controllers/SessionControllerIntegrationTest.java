@@ -2,6 +2,7 @@ package com.openclassrooms.starterjwt.controllers;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.dto.SessionPatchDto;
 import com.openclassrooms.starterjwt.models.Session;
 import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.models.User;
@@ -10,6 +11,10 @@ import com.openclassrooms.starterjwt.repository.TeacherRepository;
 import com.openclassrooms.starterjwt.repository.UserRepository;
 import com.openclassrooms.starterjwt.security.jwt.JwtUtils;
 import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import com.openclassrooms.starterjwt.services.SessionChangeEvent;
+import com.openclassrooms.starterjwt.services.SessionSearchIndex;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,15 +24,26 @@ import org.springframework.http.MediaType;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
 
-import java.util.ArrayList;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
 
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest(properties = {"spring.profiles.active=test"})
 @AutoConfigureMockMvc
@@ -52,6 +68,12 @@ public class SessionControllerIntegrationTest {
     @Autowired
     private JwtUtils jwtUtils;
 
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private SessionSearchIndex sessionSearchIndex;
+
     private Session testSession;
     private User testUser;
     private Teacher testTeacher;
@@ -83,7 +105,7 @@ public class SessionControllerIntegrationTest {
         testSession.setDescription("Description de la session de test d'intégration");
         testSession.setDate(new java.util.Date());
         testSession.setTeacher(testTeacher);
-        testSession.setUsers(new ArrayList<>());
+        testSession.setUsers(new HashSet<>());
         testSession = sessionRepository.save(testSession);
 
         // Configurer l'authentification
@@ -110,6 +132,165 @@ public class SessionControllerIntegrationTest {
                 .andExpect(jsonPath("$.[0].id").exists());
     }
 
+    @Test
+    public void testGetSessionsKeysetPage() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/session")
+                .param("limit", "1")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size", is(1)))
+                .andExpect(jsonPath("$.content.length()", is(1)))
+                .andExpect(jsonPath("$.nextCursor").exists());
+    }
+
+    @Test
+    public void testGetSessionsOffsetPage() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/session")
+                .param("page", "0")
+                .param("size", "1")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()", is(1)))
+                .andExpect(jsonPath("$.totalElements").exists());
+    }
+
+    @Test
+    public void testGetSessionsWithInvalidCursor() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/session")
+                .param("after", "invalid cursor")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testGetSessionsFilteredByDateTeacherAndParticipant() throws Exception {
+        // Une session la semaine prochaine, avec un autre enseignant et un participant
+        Teacher otherTeacher = new Teacher();
+        otherTeacher.setFirstName("Other");
+        otherTeacher.setLastName("Teacher");
+        otherTeacher = teacherRepository.save(otherTeacher);
+
+        Session nextWeek = new Session();
+        nextWeek.setName("Session de la semaine prochaine");
+        nextWeek.setDescription("Description");
+        nextWeek.setDate(java.sql.Timestamp.valueOf(LocalDateTime.now().plusWeeks(1)));
+        nextWeek.setTeacher(otherTeacher);
+        nextWeek.setUsers(new HashSet<>(List.of(testUser)));
+        nextWeek = sessionRepository.save(nextWeek);
+
+        String from = java.time.LocalDate.now().plusDays(1).toString();
+        String to = java.time.LocalDate.now().plusWeeks(2).toString();
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/session")
+                .param("from", from)
+                .param("to", to)
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].id", hasItem(nextWeek.getId().intValue())))
+                .andExpect(jsonPath("$.content[*].id", not(hasItem(testSession.getId().intValue()))));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/session")
+                .param("teacherId", testTeacher.getId().toString())
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].id", contains(testSession.getId().intValue())));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/session")
+                .param("participant", testUser.getId().toString())
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].id", contains(nextWeek.getId().intValue())));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/session")
+                .param("participant", testUser.getId().toString())
+                .param("teacherId", testTeacher.getId().toString())
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()", is(0)));
+    }
+
+    @Test
+    public void testGetSessionsWithInvalidRangeReturnsBadRequest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/session")
+                .param("from", "2026-10-20")
+                .param("to", "2026-10-19")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/session")
+                .param("from", "next week")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testSearchSessions() throws Exception {
+        // Indexer la session de test comme après la validation de sa création
+        sessionSearchIndex.onSessionChange(new SessionChangeEvent(SessionChangeEvent.Type.CREATED, testSession.getId(), null));
+
+        try {
+            mockMvc.perform(MockMvcRequestBuilders.get("/api/session/search")
+                    .param("q", "integration")
+                    .header("Authorization", "Bearer " + authToken))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].id", is(testSession.getId().intValue())));
+
+            mockMvc.perform(MockMvcRequestBuilders.get("/api/session/search")
+                    .param("q", " ")
+                    .header("Authorization", "Bearer " + authToken))
+                    .andExpect(status().isBadRequest());
+        } finally {
+            sessionSearchIndex.remove(testSession.getId());
+        }
+    }
+
+    @Test
+    public void testGetSessionsLoadsParticipantsInConstantQueries() throws Exception {
+        // Plusieurs sessions avec des participants, pour détecter un éventuel N+1
+        for (int i = 0; i < 5; i++) {
+            Session session = new Session();
+            session.setName("Session " + i);
+            session.setDescription("Description " + i);
+            session.setDate(new java.util.Date());
+            session.setTeacher(testTeacher);
+            session.setUsers(new HashSet<>(List.of(testUser)));
+            sessionRepository.save(session);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/session")
+                .param("limit", "10")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()", is(6)))
+                .andExpect(jsonPath("$.content[5].users[0]", is(testUser.getId().intValue())));
+
+        // Requête de page + requête de chargement des participants (+ éventuellement l'utilisateur authentifié)
+        assertTrue(statistics.getPrepareStatementCount() <= 3);
+        statistics.setStatisticsEnabled(false);
+    }
+
+    @Test
+    public void testGetSessionsIncludesSessionWithoutTeacher() throws Exception {
+        Session session = new Session();
+        session.setName("Session sans enseignant");
+        session.setDescription("Description");
+        session.setDate(new java.util.Date(0));
+        sessionRepository.save(session);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/session")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(2)))
+                .andExpect(jsonPath("$[0].name", is("Session sans enseignant")))
+                .andExpect(jsonPath("$[0].users.length()", is(0)));
+    }
+
     @Test
     public void testGetSessionById() throws Exception {
         mockMvc.perform(MockMvcRequestBuilders.get("/api/session/" + testSession.getId())
@@ -137,6 +318,62 @@ public class SessionControllerIntegrationTest {
                 .andExpect(jsonPath("$.description", is("Description de la nouvelle session d'intégration")));
     }
 
+    @Test
+    public void testCreateSessionsInBatch() throws Exception {
+        List<SessionDto> batch = new java.util.ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            SessionDto sessionDto = new SessionDto();
+            sessionDto.setName("Session importée " + i);
+            sessionDto.setDescription("Description de la session importée");
+            sessionDto.setDate(new java.util.Date());
+            sessionDto.setTeacher_id(testTeacher.getId());
+            sessionDto.setUsers(List.of(testUser.getId()));
+            batch.add(sessionDto);
+        }
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.post("/api/session/batch")
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(batch)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sessions.length()", is(3)))
+                .andExpect(jsonPath("$.sessions[0].users[0]", is(testUser.getId().intValue())))
+                .andExpect(jsonPath("$.errors.length()", is(0)))
+                .andReturn();
+
+        // Les identifiants générés par le lot JDBC sont renvoyés et les participants enregistrés
+        List<Long> ids = new java.util.ArrayList<>();
+        objectMapper.readTree(result.getResponse().getContentAsString()).get("sessions")
+                .forEach(session -> ids.add(session.get("id").asLong()));
+        assertEquals(3, new java.util.HashSet<>(ids).size());
+        assertEquals(3, sessionRepository.findParticipantsBySessionIdIn(ids).size());
+        assertTrue(ids.stream().allMatch(sessionRepository::existsById));
+    }
+
+    @Test
+    public void testCreateSessionsInBatchReportsInvalidItems() throws Exception {
+        long before = sessionRepository.count();
+        SessionDto valid = new SessionDto();
+        valid.setName("Session valide");
+        valid.setDescription("Description");
+        valid.setDate(new java.util.Date());
+        valid.setTeacher_id(testTeacher.getId());
+        SessionDto invalid = new SessionDto();
+        invalid.setDescription("Sans nom ni date");
+        invalid.setTeacher_id(testTeacher.getId());
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/session/batch")
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(List.of(valid, invalid))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0].index", is(1)))
+                .andExpect(jsonPath("$.errors.length()", is(1)));
+
+        // Aucune session du lot n'est créée
+        assertEquals(before, sessionRepository.count());
+    }
+
     @Test
     public void testUpdateSession() throws Exception {
         SessionDto updatedSessionDto = new SessionDto();
@@ -156,6 +393,73 @@ public class SessionControllerIntegrationTest {
                 .andExpect(jsonPath("$.description", is("Description mise à jour")));
     }
 
+    @Test
+    public void testUpdateSessionWithStaleIfMatchReturnsConflict() throws Exception {
+        SessionDto updatedSessionDto = new SessionDto();
+        updatedSessionDto.setName("Session mise à jour");
+        updatedSessionDto.setDescription("Description mise à jour");
+        updatedSessionDto.setDate(new java.util.Date());
+        updatedSessionDto.setTeacher_id(testTeacher.getId());
+
+        String etag = mockMvc.perform(MockMvcRequestBuilders.get("/api/session/" + testSession.getId())
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        // Première modification avec la bonne version : l'ETag renvoyé est la nouvelle version
+        String newEtag = mockMvc.perform(MockMvcRequestBuilders.put("/api/session/" + testSession.getId())
+                .header("Authorization", "Bearer " + authToken)
+                .header("If-Match", etag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(updatedSessionDto)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotEquals(etag, newEtag);
+
+        // Une seconde modification fondée sur l'ancienne version est refusée
+        updatedSessionDto.setName("Modification concurrente");
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/session/" + testSession.getId())
+                .header("Authorization", "Bearer " + authToken)
+                .header("If-Match", etag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(updatedSessionDto)))
+                .andExpect(status().isConflict());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/session/" + testSession.getId())
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(jsonPath("$.name", is("Session mise à jour")));
+    }
+
+    @Test
+    public void testPatchSessionWithIfMatch() throws Exception {
+        SessionPatchDto patch = new SessionPatchDto();
+        patch.setName("Nouveau nom");
+
+        String etag = mockMvc.perform(MockMvcRequestBuilders.get("/api/session/" + testSession.getId())
+                .header("Authorization", "Bearer " + authToken))
+                .andReturn().getResponse().getHeader("ETag");
+
+        // Une inscription entre la lecture et la modification change la version
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/session/" + testSession.getId() + "/participate/" + testUser.getId())
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(MockMvcRequestBuilders.patch("/api/session/" + testSession.getId())
+                .header("Authorization", "Bearer " + authToken)
+                .header("If-Match", etag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(patch)))
+                .andExpect(status().isConflict());
+
+        mockMvc.perform(MockMvcRequestBuilders.patch("/api/session/" + testSession.getId())
+                .header("Authorization", "Bearer " + authToken)
+                .header("If-Match", "*")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(patch)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name", is("Nouveau nom")));
+    }
+
     @Test
     public void testDeleteSession() throws Exception {
         mockMvc.perform(MockMvcRequestBuilders.delete("/api/session/" + testSession.getId())
@@ -168,6 +472,135 @@ public class SessionControllerIntegrationTest {
         mockMvc.perform(MockMvcRequestBuilders.post("/api/session/" + testSession.getId() + "/participate/" + testUser.getId())
                 .header("Authorization", "Bearer " + authToken))
                 .andExpect(status().isOk());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/session/" + testSession.getId())
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(jsonPath("$.users[0]", is(testUser.getId().intValue())));
+    }
+
+    @Test
+    public void testParticipateTwiceReturnsBadRequest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/session/" + testSession.getId() + "/participate/" + testUser.getId())
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/session/" + testSession.getId() + "/participate/" + testUser.getId())
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testFullSessionWaitlistsAndPromotesOnCancellation() throws Exception {
+        User otherUser = new User();
+        otherUser.setEmail("full-session@example.com");
+        otherUser.setFirstName("Full");
+        otherUser.setLastName("Session");
+        otherUser.setPassword("password");
+        otherUser = userRepository.save(otherUser);
+
+        testSession.setCapacity(1);
+        sessionRepository.save(testSession);
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/session/" + testSession.getId() + "/participate/" + testUser.getId())
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/session/" + testSession.getId() + "/participate/" + otherUser.getId())
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.message", is("Session is full, user added to the waitlist!")));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/session/" + testSession.getId())
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(jsonPath("$.seatsTaken", is(1)))
+                .andExpect(jsonPath("$.users", contains(testUser.getId().intValue())));
+
+        // Le départ du participant promeut le premier de la liste d'attente
+        mockMvc.perform(MockMvcRequestBuilders.delete("/api/session/" + testSession.getId() + "/participate/" + testUser.getId())
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/session/" + testSession.getId())
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(jsonPath("$.seatsTaken", is(1)))
+                .andExpect(jsonPath("$.users", contains(otherUser.getId().intValue())));
+    }
+
+    @Test
+    public void testConditionalGetReturnsNotModifiedUntilSessionsChange() throws Exception {
+        String etag = mockMvc.perform(MockMvcRequestBuilders.get("/api/session")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/session")
+                .header("Authorization", "Bearer " + authToken)
+                .header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        // Une inscription modifie la version de la liste et de la session
+        String sessionEtag = mockMvc.perform(MockMvcRequestBuilders.get("/api/session/" + testSession.getId())
+                .header("Authorization", "Bearer " + authToken))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/session/" + testSession.getId() + "/participate/" + testUser.getId())
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/session")
+                .header("Authorization", "Bearer " + authToken)
+                .header("If-None-Match", etag))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/session/" + testSession.getId())
+                .header("Authorization", "Bearer " + authToken)
+                .header("If-None-Match", sessionEtag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void testChangesReturnsUpdatedSessionsAndTombstones() throws Exception {
+        String since = LocalDateTime.now().minusMinutes(1).toString();
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/session/changes")
+                .param("since", since)
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated[*].id", hasItem(testSession.getId().intValue())))
+                .andExpect(jsonPath("$.deleted.length()", is(0)))
+                .andExpect(jsonPath("$.watermark").exists());
+
+        mockMvc.perform(MockMvcRequestBuilders.delete("/api/session/" + testSession.getId())
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/session/changes")
+                .param("since", since)
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated[*].id", not(hasItem(testSession.getId().intValue()))))
+                .andExpect(jsonPath("$.deleted", contains(testSession.getId().intValue())));
+
+        // Un filigrane futur ne renvoie rien
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/session/changes")
+                .param("since", LocalDateTime.now().plusMinutes(1).toString())
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(jsonPath("$.updated.length()", is(0)))
+                .andExpect(jsonPath("$.deleted.length()", is(0)));
+    }
+
+    @Test
+    public void testParticipateInUnknownSessionReturnsNotFound() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/session/" + (testSession.getId() + 1000) + "/participate/" + testUser.getId())
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testNoLongerParticipateWithoutParticipationReturnsBadRequest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.delete("/api/session/" + testSession.getId() + "/participate/" + testUser.getId())
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isBadRequest());
     }
 
     @Test
@@ -180,4 +613,212 @@ public class SessionControllerIntegrationTest {
                 .header("Authorization", "Bearer " + authToken))
                 .andExpect(status().isOk());
     }
+
+    @Test
+    public void testNoLongerParticipateDoesNotRewriteOtherParticipants() throws Exception {
+        User otherUser = new User();
+        otherUser.setEmail("other-participant@example.com");
+        otherUser.setFirstName("Other");
+        otherUser.setLastName("Participant");
+        otherUser.setPassword("password");
+        otherUser = userRepository.save(otherUser);
+
+        testSession.getUsers().add(testUser);
+        testSession.getUsers().add(otherUser);
+        sessionRepository.save(testSession);
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        mockMvc.perform(MockMvcRequestBuilders.delete("/api/session/" + testSession.getId() + "/participate/" + testUser.getId())
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk());
+        entityManager.flush();
+
+        // La collection est mise à jour ligne par ligne, jamais recréée
+        assertEquals(0, statistics.getCollectionRecreateCount());
+        statistics.setStatisticsEnabled(false);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/session/" + testSession.getId())
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(jsonPath("$.users.length()", is(1)))
+                .andExpect(jsonPath("$.users[0]", is(otherUser.getId().intValue())));
+    }
+
+    @Test
+    public void testPatchSessionOnlyWritesGivenFields() throws Exception {
+        // Arrange
+        testSession.getUsers().add(testUser);
+        testSession.setSeatsTaken(1);
+        sessionRepository.save(testSession);
+        entityManager.flush();
+        entityManager.clear();
+
+        SessionPatchDto patch = new SessionPatchDto();
+        patch.setName("Nouveau nom");
+
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        // Act
+        mockMvc.perform(MockMvcRequestBuilders.patch("/api/session/" + testSession.getId())
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(patch)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name", is("Nouveau nom")))
+                .andExpect(jsonPath("$.description", is(testSession.getDescription())))
+                .andExpect(jsonPath("$.users", contains(testUser.getId().intValue())));
+
+        // Assert
+        // Aucune entité chargée ni collection réécrite : seule la requête UPDATE modifie la session
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(0, statistics.getCollectionRecreateCount());
+        statistics.setStatisticsEnabled(false);
+    }
+
+    @Test
+    public void testPatchSessionReplacesParticipantsWhenGiven() throws Exception {
+        // Arrange
+        User otherUser = userRepository.save(new User("patch-participant@example.com", "Participant", "Patch", "password", false));
+        testSession.getUsers().add(testUser);
+        testSession.setSeatsTaken(1);
+        sessionRepository.save(testSession);
+        entityManager.flush();
+
+        SessionPatchDto patch = new SessionPatchDto();
+        patch.setUsers(List.of(otherUser.getId()));
+
+        // Act & Assert
+        mockMvc.perform(MockMvcRequestBuilders.patch("/api/session/" + testSession.getId())
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(patch)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users", contains(otherUser.getId().intValue())))
+                .andExpect(jsonPath("$.seatsTaken", is(1)));
+    }
+
+    @Test
+    public void testPatchSessionRejectsCapacityBelowSeatsTaken() throws Exception {
+        // Arrange
+        User otherUser = userRepository.save(new User("patch-capacity@example.com", "Capacity", "Patch", "password", false));
+        testSession.getUsers().add(testUser);
+        testSession.getUsers().add(otherUser);
+        testSession.setSeatsTaken(2);
+        sessionRepository.save(testSession);
+        entityManager.flush();
+
+        SessionPatchDto patch = new SessionPatchDto();
+        patch.setCapacity(1);
+
+        // Act & Assert
+        mockMvc.perform(MockMvcRequestBuilders.patch("/api/session/" + testSession.getId())
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(patch)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testPatchRejectsBlankNameAndEmptyBody() throws Exception {
+        SessionPatchDto blank = new SessionPatchDto();
+        blank.setName("   ");
+
+        mockMvc.perform(MockMvcRequestBuilders.patch("/api/session/" + testSession.getId())
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(blank)))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(MockMvcRequestBuilders.patch("/api/session/" + testSession.getId())
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{}"))
+                .andExpect(status().isBadRequest());
+
+        // Ni le nom ni la version ne changent
+        entityManager.clear();
+        Session session = sessionRepository.findById(testSession.getId()).orElseThrow();
+        assertEquals(testSession.getName(), session.getName());
+        assertEquals(testSession.getVersion(), session.getVersion());
+    }
+
+    @Test
+    public void testPatchUnknownSessionReturnsNotFound() throws Exception {
+        SessionPatchDto patch = new SessionPatchDto();
+        patch.setName("Nouveau nom");
+
+        mockMvc.perform(MockMvcRequestBuilders.patch("/api/session/" + (testSession.getId() + 1000))
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(patch)))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testCapacityIncreasePromotesWaitlistedUser() throws Exception {
+        // Arrange
+        User waitlisted = userRepository.save(new User("waitlisted-capacity@example.com", "Waitlisted", "Capacity", "password", false));
+        testSession.setCapacity(1);
+        sessionRepository.save(testSession);
+        entityManager.flush();
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/session/" + testSession.getId() + "/participate/" + testUser.getId())
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/session/" + testSession.getId() + "/participate/" + waitlisted.getId())
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isAccepted());
+
+        SessionPatchDto patch = new SessionPatchDto();
+        patch.setCapacity(2);
+
+        // Act & Assert
+        mockMvc.perform(MockMvcRequestBuilders.patch("/api/session/" + testSession.getId())
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(patch)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users", contains(testUser.getId().intValue(), waitlisted.getId().intValue())))
+                .andExpect(jsonPath("$.seatsTaken", is(2)));
+    }
+
+    @Test
+    public void testLeaveSucceedsWhenWaitlistedUserWasAddedByPatch() throws Exception {
+        // Arrange
+        User waitlisted = userRepository.save(new User("waitlisted-patch@example.com", "Waitlisted", "Patch", "password", false));
+        testSession.setCapacity(1);
+        sessionRepository.save(testSession);
+        entityManager.flush();
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/session/" + testSession.getId() + "/participate/" + testUser.getId())
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/session/" + testSession.getId() + "/participate/" + waitlisted.getId())
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isAccepted());
+
+        // L'administrateur inscrit directement l'utilisateur en liste d'attente
+        SessionPatchDto patch = new SessionPatchDto();
+        patch.setCapacity(2);
+        patch.setUsers(List.of(testUser.getId(), waitlisted.getId()));
+        mockMvc.perform(MockMvcRequestBuilders.patch("/api/session/" + testSession.getId())
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(patch)))
+                .andExpect(status().isOk());
+
+        // Act & Assert
+        // Son entrée en liste d'attente a été retirée : le départ d'un autre participant ne tente pas de le promouvoir
+        mockMvc.perform(MockMvcRequestBuilders.delete("/api/session/" + testSession.getId() + "/participate/" + testUser.getId())
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/session/" + testSession.getId())
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(jsonPath("$.users", contains(waitlisted.getId().intValue())))
+                .andExpect(jsonPath("$.seatsTaken", is(1)));
+    }
 }
@@ -1,23 +1,44 @@
 package com.openclassrooms.starterjwt.controllers;
 
 import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.dto.SessionPatchDto;
 import com.openclassrooms.starterjwt.mapper.SessionMapper;
 import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.payload.response.SessionBatchResponse;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.payload.response.CursorPageResponse;
+import com.openclassrooms.starterjwt.payload.response.MessageResponse;
+import com.openclassrooms.starterjwt.payload.response.SessionChangesResponse;
+import com.openclassrooms.starterjwt.repository.projection.SessionView;
+import com.openclassrooms.starterjwt.services.ParticipationStatus;
+import com.openclassrooms.starterjwt.services.SessionCursor;
+import com.openclassrooms.starterjwt.services.SessionEventBroadcaster;
+import com.openclassrooms.starterjwt.services.SessionSeriesService;
 import com.openclassrooms.starterjwt.services.SessionService;
+import com.openclassrooms.starterjwt.services.TeacherService;
+import com.openclassrooms.starterjwt.services.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Arrays;
+import javax.validation.Validator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -34,12 +55,30 @@ public class SessionControllerTest {
     @Mock
     private SessionMapper sessionMapper;
 
+    @Mock
+    private SessionEventBroadcaster sessionEventBroadcaster;
+
+    @Mock
+    private SessionSeriesService sessionSeriesService;
+
+    @Mock
+    private TeacherService teacherService;
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private Validator validator;
+
     private Session session1;
     private Session session2;
     private SessionDto sessionDto1;
     private SessionDto sessionDto2;
-    private List<Session> sessionList;
     private List<SessionDto> sessionDtoList;
+    private SessionView sessionView1;
+    private SessionView sessionView2;
+    private List<SessionView> sessionViewList;
+    private Map<Long, List<Long>> participants;
 
     @BeforeEach
     public void setup() {
@@ -49,16 +88,14 @@ public class SessionControllerTest {
         session1.setName("Yoga matinal");
         session1.setDescription("Session de yoga pour bien commencer la journée");
         session1.setDate(new java.util.Date());
-        session1.setUsers(new ArrayList<>());
+        session1.setUsers(new HashSet<>());
 
         session2 = new Session();
         session2.setId(2L);
         session2.setName("Yoga avancé");
         session2.setDescription("Session de yoga pour les expérimentés");
         session2.setDate(new java.util.Date());
-        session2.setUsers(new ArrayList<>());
-
-        sessionList = Arrays.asList(session1, session2);
+        session2.setUsers(new HashSet<>());
 
         // Configuration des DTOs de session
         sessionDto1 = new SessionDto();
@@ -74,62 +111,213 @@ public class SessionControllerTest {
         sessionDto2.setDate(session2.getDate());
 
         sessionDtoList = Arrays.asList(sessionDto1, sessionDto2);
+
+        // Configuration des projections de session
+        SpelAwareProxyProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+        sessionView1 = projectionFactory.createProjection(SessionView.class,
+                Map.of("id", 1L, "name", "Yoga matinal", "date", session1.getDate(), "version", 3L));
+        sessionView2 = projectionFactory.createProjection(SessionView.class,
+                Map.of("id", 2L, "name", "Yoga avancé", "date", session2.getDate()));
+        sessionViewList = Arrays.asList(sessionView1, sessionView2);
+        participants = Map.of(1L, List.of(3L));
     }
 
     @Test
     public void testFindByIdReturnsSession() {
         // Arrange
-        when(sessionService.getById(1L)).thenReturn(session1);
-        when(sessionMapper.toDto(session1)).thenReturn(sessionDto1);
+        when(sessionService.getVersion(1L)).thenReturn(4L);
+        when(sessionService.getViewById(1L)).thenReturn(sessionView1);
+        when(sessionService.findParticipantIds(List.of(1L))).thenReturn(participants);
+        when(sessionMapper.toDto(List.of(sessionView1), participants)).thenReturn(List.of(sessionDto1));
 
         // Act
-        ResponseEntity<?> response = sessionController.findById("1");
+        ResponseEntity<?> response = sessionController.findById("1", null);
 
         // Assert
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(sessionDto1, response.getBody());
-        verify(sessionService).getById(1L);
-        verify(sessionMapper).toDto(session1);
+        assertEquals("\"4\"", response.getHeaders().getETag());
+        verify(sessionService).getViewById(1L);
+        verify(sessionService, never()).getById(anyLong());
+    }
+
+    @Test
+    public void testFindByIdReturnsNotModifiedWhenETagMatches() {
+        // Arrange
+        when(sessionService.getVersion(1L)).thenReturn(4L);
+        String etag = EntityTags.ofVersion(4L);
+
+        // Act
+        ResponseEntity<?> response = sessionController.findById("1", etag);
+
+        // Assert
+        // La session n'est ni chargée ni sérialisée
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getBody());
+        verify(sessionService, never()).getViewById(anyLong());
     }
 
     @Test
     public void testFindByIdReturnsNotFoundWhenSessionNotFound() {
         // Arrange
-        when(sessionService.getById(999L)).thenReturn(null);
+        when(sessionService.getVersion(999L)).thenReturn(null);
 
         // Act
-        ResponseEntity<?> response = sessionController.findById("999");
+        ResponseEntity<?> response = sessionController.findById("999", null);
 
         // Assert
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
-        verify(sessionService).getById(999L);
-        verify(sessionMapper, never()).toDto(any(Session.class));
+        verify(sessionService, never()).getViewById(999L);
+        verify(sessionService, never()).findParticipantIds(anyCollection());
     }
 
     @Test
     public void testFindByIdReturnsBadRequestWithInvalidId() {
         // Act
-        ResponseEntity<?> response = sessionController.findById("invalid");
+        ResponseEntity<?> response = sessionController.findById("invalid", null);
 
         // Assert
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
-        verify(sessionService, never()).getById(anyLong());
+        verify(sessionService, never()).getViewById(anyLong());
     }
 
     @Test
     public void testFindAllReturnsAllSessions() {
         // Arrange
-        when(sessionService.findAll()).thenReturn(sessionList);
-        when(sessionMapper.toDto(sessionList)).thenReturn(sessionDtoList);
+        when(sessionService.findAllViews()).thenReturn(sessionViewList);
+        when(sessionService.findParticipantIds(List.of(1L, 2L))).thenReturn(participants);
+        when(sessionMapper.toDto(sessionViewList, participants)).thenReturn(sessionDtoList);
 
         // Act
-        ResponseEntity<?> response = sessionController.findAll();
+        ResponseEntity<?> response = sessionController.findAll(null, null, null, null, null, null, null, null, null);
 
         // Assert
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(sessionDtoList, response.getBody());
-        verify(sessionService).findAll();
-        verify(sessionMapper).toDto(sessionList);
+        verify(sessionService).findAllViews();
+    }
+
+    @Test
+    public void testFindAllReturnsNotModifiedWhenETagMatches() {
+        // Arrange
+        when(sessionService.getVersion()).thenReturn("2:2:v1:1");
+        String etag = EntityTags.of("2:2:v1:1", null, null, null, null, null, null, null, null);
+
+        // Act
+        ResponseEntity<?> response = sessionController.findAll(null, null, null, null, null, null, null, null, etag);
+
+        // Assert
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals(etag, response.getHeaders().getETag());
+        verify(sessionService, never()).findAllViews();
+        verify(sessionService, never()).findParticipantIds(anyCollection());
+    }
+
+    @Test
+    public void testFindChangesReturnsUpdatedAndDeletedSessions() {
+        // Arrange
+        LocalDateTime since = LocalDateTime.of(2026, 1, 1, 10, 0);
+        LocalDateTime watermark = LocalDateTime.of(2026, 1, 1, 11, 0);
+        when(sessionService.getChangesWatermark()).thenReturn(watermark);
+        when(sessionService.findViewsUpdatedSince(since)).thenReturn(sessionViewList);
+        when(sessionService.findDeletedSince(since)).thenReturn(List.of(7L));
+        when(sessionService.findParticipantIds(List.of(1L, 2L))).thenReturn(participants);
+        when(sessionMapper.toDto(sessionViewList, participants)).thenReturn(sessionDtoList);
+
+        // Act
+        ResponseEntity<?> response = sessionController.findChanges("2026-01-01T10:00:00");
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        SessionChangesResponse body = (SessionChangesResponse) response.getBody();
+        assertEquals(sessionDtoList, body.getUpdated());
+        assertEquals(List.of(7L), body.getDeleted());
+        assertEquals(watermark, body.getWatermark());
+    }
+
+    @Test
+    public void testFindChangesOlderThanRetentionRequiresFullResync() {
+        // Arrange
+        LocalDateTime since = LocalDateTime.of(2020, 1, 1, 10, 0);
+        when(sessionService.requiresFullResync(since)).thenReturn(true);
+
+        // Act
+        ResponseEntity<?> response = sessionController.findChanges("2020-01-01T10:00:00");
+
+        // Assert
+        // Les pierres tombales de cette période sont purgées : le client doit recharger toute la liste
+        assertEquals(HttpStatus.GONE, response.getStatusCode());
+        verify(sessionService, never()).findDeletedSince(any());
+    }
+
+    @Test
+    public void testFindChangesWithInvalidWatermarkReturnsBadRequest() {
+        // Act
+        ResponseEntity<?> response = sessionController.findChanges("yesterday");
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verify(sessionService, never()).findViewsUpdatedSince(any());
+    }
+
+    @Test
+    public void testFindAllWithLimitReturnsFirstKeysetPage() {
+        // Arrange
+        when(sessionService.pageSize(2)).thenReturn(2);
+        when(sessionService.findAllAfter(null, 2)).thenReturn(sessionViewList);
+        when(sessionService.findParticipantIds(List.of(1L, 2L))).thenReturn(participants);
+        when(sessionMapper.toDto(sessionViewList, participants)).thenReturn(sessionDtoList);
+
+        // Act
+        ResponseEntity<?> response = sessionController.findAll(null, 2, null, null, null, null, null, null, null);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        CursorPageResponse<?> body = (CursorPageResponse<?>) response.getBody();
+        assertEquals(sessionDtoList, body.getContent());
+        assertEquals(2, body.getSize());
+        assertEquals(SessionCursor.of(sessionView2).encode(), body.getNextCursor());
+        verify(sessionService, never()).findAllViews();
+    }
+
+    @Test
+    public void testFindAllWithCursorReturnsLastKeysetPage() {
+        // Arrange
+        String after = SessionCursor.of(sessionView1).encode();
+        List<SessionView> lastPage = List.of(sessionView2);
+        List<SessionDto> lastPageDto = List.of(sessionDto2);
+        when(sessionService.pageSize(null)).thenReturn(20);
+        when(sessionService.findAllAfter(any(SessionCursor.class), eq(20))).thenReturn(lastPage);
+        when(sessionService.findParticipantIds(List.of(2L))).thenReturn(Map.of());
+        when(sessionMapper.toDto(lastPage, Map.of())).thenReturn(lastPageDto);
+
+        // Act
+        ResponseEntity<?> response = sessionController.findAll(after, null, null, null, null, null, null, null, null);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        CursorPageResponse<?> body = (CursorPageResponse<?>) response.getBody();
+        assertEquals(lastPageDto, body.getContent());
+        assertNull(body.getNextCursor());
+    }
+
+    @Test
+    public void testFindAllWithPageReturnsOffsetPage() {
+        // Arrange
+        Page<SessionView> page = new PageImpl<>(sessionViewList, PageRequest.of(0, 2), 5);
+        when(sessionService.findPage(0, 2)).thenReturn(page);
+        when(sessionService.findParticipantIds(List.of(1L, 2L))).thenReturn(participants);
+        when(sessionMapper.toDto(sessionViewList, participants)).thenReturn(sessionDtoList);
+
+        // Act
+        ResponseEntity<?> response = sessionController.findAll(null, null, 0, 2, null, null, null, null, null);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        Page<?> body = (Page<?>) response.getBody();
+        assertEquals(sessionDtoList, body.getContent());
+        assertEquals(5, body.getTotalElements());
+        verify(sessionService, never()).findAllViews();
     }
 
     @Test
@@ -150,33 +338,110 @@ public class SessionControllerTest {
         verify(sessionMapper).toDto(session1);
     }
 
+    @Test
+    public void testCreateAllResolvesReferencesOnceAndCreatesBatch() {
+        // Arrange
+        Teacher teacher = new Teacher();
+        teacher.setId(5L);
+        sessionDto1.setTeacher_id(5L);
+        sessionDto2.setTeacher_id(5L);
+        List<SessionDto> batch = List.of(sessionDto1, sessionDto2);
+        when(sessionService.getMaxBatchSize()).thenReturn(500);
+        when(teacherService.findAllById(Set.of(5L))).thenReturn(Map.of(5L, teacher));
+        when(userService.findAllById(Set.of())).thenReturn(Map.of());
+        when(sessionMapper.toEntity(eq(sessionDto1), anyMap(), anyMap())).thenReturn(session1);
+        when(sessionMapper.toEntity(eq(sessionDto2), anyMap(), anyMap())).thenReturn(session2);
+        when(sessionService.createAll(List.of(session1, session2))).thenReturn(List.of(session1, session2));
+        when(sessionMapper.toDto(List.of(session1, session2))).thenReturn(batch);
+
+        // Act
+        ResponseEntity<?> response = sessionController.createAll(batch);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        SessionBatchResponse body = (SessionBatchResponse) response.getBody();
+        assertEquals(batch, body.getSessions());
+        assertTrue(body.getErrors().isEmpty());
+        verify(teacherService, never()).findById(anyLong());
+        verify(userService, never()).findById(anyLong());
+    }
+
+    @Test
+    public void testCreateAllReportsItemErrorsAndCreatesNothing() {
+        // Arrange
+        Teacher teacher = new Teacher();
+        teacher.setId(5L);
+        sessionDto1.setTeacher_id(5L);
+        sessionDto2.setTeacher_id(6L);
+        sessionDto2.setUsers(List.of(7L));
+        when(sessionService.getMaxBatchSize()).thenReturn(500);
+        when(teacherService.findAllById(Set.of(5L, 6L))).thenReturn(Map.of(5L, teacher));
+        when(userService.findAllById(Set.of(7L))).thenReturn(Map.of());
+        when(sessionMapper.toEntity(eq(sessionDto1), anyMap(), anyMap())).thenReturn(session1);
+
+        // Act
+        ResponseEntity<?> response = sessionController.createAll(List.of(sessionDto1, sessionDto2));
+
+        // Assert
+        // Le second élément est signalé avec sa position, rien n'est inséré
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        SessionBatchResponse body = (SessionBatchResponse) response.getBody();
+        assertEquals(1, body.getErrors().size());
+        assertEquals(1, body.getErrors().get(0).getIndex());
+        assertEquals("unknown teacher 6", body.getErrors().get(0).getMessage());
+        verify(sessionService, never()).createAll(anyList());
+    }
+
+    @Test
+    public void testCreateAllRejectsOversizedBatch() {
+        // Arrange
+        when(sessionService.getMaxBatchSize()).thenReturn(1);
+
+        // Act
+        ResponseEntity<?> response = sessionController.createAll(List.of(sessionDto1, sessionDto2));
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verify(sessionService, never()).createAll(anyList());
+    }
+
     @Test
     public void testUpdateSessionSuccess() {
         // Arrange
         when(sessionMapper.toEntity(sessionDto1)).thenReturn(session1);
-        when(sessionService.update(1L, session1)).thenReturn(session1);
-        when(sessionMapper.toDto(session1)).thenReturn(sessionDto1);
+        when(sessionService.update(1L, session1, 3L)).thenReturn(sessionView1);
+        when(sessionService.findParticipantIds(List.of(1L))).thenReturn(participants);
+        when(sessionMapper.toDto(List.of(sessionView1), participants)).thenReturn(List.of(sessionDto1));
 
         // Act
-        ResponseEntity<?> response = sessionController.update("1", sessionDto1);
+        ResponseEntity<?> response = sessionController.update("1", sessionDto1, "\"3\"");
 
         // Assert
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(sessionDto1, response.getBody());
         verify(sessionMapper).toEntity(sessionDto1);
-        verify(sessionService).update(1L, session1);
-        verify(sessionMapper).toDto(session1);
+        verify(sessionService).update(1L, session1, 3L);
+    }
+
+    @Test
+    public void testUpdateSessionReturnsBadRequestWithMalformedIfMatch() {
+        // Act
+        ResponseEntity<?> response = sessionController.update("1", sessionDto1, "\"1:1:v1:0\"");
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verify(sessionService, never()).update(anyLong(), any(Session.class), any());
     }
 
     @Test
     public void testUpdateSessionReturnsBadRequestWithInvalidId() {
         // Act
-        ResponseEntity<?> response = sessionController.update("invalid", sessionDto1);
+        ResponseEntity<?> response = sessionController.update("invalid", sessionDto1, null);
 
         // Assert
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
         verify(sessionMapper, never()).toEntity(any(SessionDto.class));
-        verify(sessionService, never()).update(anyLong(), any(Session.class));
+        verify(sessionService, never()).update(anyLong(), any(Session.class), any());
     }
 
     @Test
@@ -222,7 +487,7 @@ public class SessionControllerTest {
     @Test
     public void testParticipateSuccess() {
         // Arrange
-        doNothing().when(sessionService).participate(1L, 1L);
+        when(sessionService.participate(1L, 1L)).thenReturn(ParticipationStatus.PARTICIPATING);
 
         // Act
         ResponseEntity<?> response = sessionController.participate("1", "1");
@@ -232,6 +497,19 @@ public class SessionControllerTest {
         verify(sessionService).participate(1L, 1L);
     }
 
+    @Test
+    public void testParticipateReturnsAcceptedWhenUserIsWaitlisted() {
+        // Arrange
+        when(sessionService.participate(1L, 1L)).thenReturn(ParticipationStatus.WAITLISTED);
+
+        // Act
+        ResponseEntity<?> response = sessionController.participate("1", "1");
+
+        // Assert
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertEquals("Session is full, user added to the waitlist!", ((MessageResponse) response.getBody()).getMessage());
+    }
+
     @Test
     public void testParticipateBadRequestWithInvalidId() {
         // Act
@@ -264,4 +542,37 @@ public class SessionControllerTest {
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
         verify(sessionService, never()).noLongerParticipate(anyLong(), anyLong());
     }
+
+    @Test
+    public void testStreamSubscribesToSessionChanges() {
+        // Arrange
+        SseEmitter emitter = new SseEmitter();
+        when(sessionEventBroadcaster.subscribe()).thenReturn(emitter);
+
+        // Act
+        SseEmitter result = sessionController.stream();
+
+        // Assert
+        assertSame(emitter, result);
+    }
+
+    @Test
+    public void testPatchSessionReturnsBadRequestWithInvalidId() {
+        // Act
+        ResponseEntity<?> response = sessionController.patch("invalid", new SessionPatchDto(), null);
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verify(sessionService, never()).patch(anyLong(), any());
+    }
+
+    @Test
+    public void testFindTimetableBadRequestWithInvalidDate() {
+        // Act
+        ResponseEntity<?> response = sessionController.findTimetable("demain", "2030-01-08");
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verifyNoInteractions(sessionSeriesService);
+    }
 }
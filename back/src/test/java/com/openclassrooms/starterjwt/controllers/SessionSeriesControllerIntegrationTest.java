@@ -0,0 +1,213 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.dto.SessionSeriesDto;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.security.jwt.JwtUtils;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {"spring.profiles.active=test"})
+@AutoConfigureMockMvc
+@Transactional
+public class SessionSeriesControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TeacherRepository teacherRepository;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Teacher testTeacher;
+    private String authToken;
+
+    @BeforeEach
+    public void setup() {
+        // Nettoyer le contexte de sécurité
+        SecurityContextHolder.clearContext();
+
+        User testUser = userRepository.save(new User("test-series@example.com", "Series", "Test", "password", true));
+
+        testTeacher = new Teacher();
+        testTeacher.setFirstName("Teacher");
+        testTeacher.setLastName("Series");
+        testTeacher = teacherRepository.save(testTeacher);
+
+        // Configurer l'authentification
+        UserDetailsImpl userDetails = UserDetailsImpl.builder()
+                .id(testUser.getId())
+                .username(testUser.getEmail())
+                .firstName(testUser.getFirstName())
+                .lastName(testUser.getLastName())
+                .password(testUser.getPassword())
+                .build();
+
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                userDetails, null, userDetails.getAuthorities());
+
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        authToken = jwtUtils.generateJwtToken(authentication);
+    }
+
+    private long createWeeklySeries() throws Exception {
+        // Une séance par semaine, à partir de demain 18h
+        Date startAt = Date.from(LocalDate.now().plusDays(1).atTime(18, 0).atZone(ZoneId.systemDefault()).toInstant());
+        SessionSeriesDto dto = new SessionSeriesDto(null, "Yoga hebdomadaire", "Chaque semaine",
+                testTeacher.getId(), 12, startAt, 7, null, null, null, null);
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.post("/api/series")
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").exists())
+                .andExpect(jsonPath("$.materializedUntil").exists())
+                .andReturn();
+
+        return objectMapper.readTree(result.getResponse().getContentAsString()).get("id").asLong();
+    }
+
+    @Test
+    public void testCreateSeriesStoresOccurrencesWithinWindow() throws Exception {
+        // Act
+        long seriesId = createWeeklySeries();
+
+        // Assert
+        // Fenêtre de 14 jours : deux occurrences hebdomadaires sont enregistrées
+        assertEquals(2, sessionRepository.findAll().stream()
+                .filter(session -> session.getSeries() != null && session.getSeries().getId() == seriesId)
+                .count());
+    }
+
+    @Test
+    public void testCreateSeriesRejectsUnknownTeacher() throws Exception {
+        SessionSeriesDto dto = new SessionSeriesDto(null, "Yoga", "Description",
+                testTeacher.getId() + 1000, 12, new Date(), 7, null, null, null, null);
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/series")
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testTimetableIncludesVirtualOccurrences() throws Exception {
+        // Arrange
+        long seriesId = createWeeklySeries();
+        entityManager.flush();
+
+        // Act & Assert
+        // Huit semaines : deux occurrences enregistrées, les suivantes sont calculées à la volée
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/session/timetable")
+                .param("from", LocalDate.now().toString())
+                .param("to", LocalDate.now().plusDays(56).toString())
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.seriesId == " + seriesId + ")]", hasSize(8)))
+                .andExpect(jsonPath("$[?(@.seriesId == " + seriesId + " && @.id != null)]", hasSize(2)));
+    }
+
+    @Test
+    public void testTimetableRejectsTooLongRange() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/session/timetable")
+                .param("from", "2030-01-01")
+                .param("to", "2031-01-01")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testUpdateSeriesLeavesStoredSessionsUnchanged() throws Exception {
+        // Arrange
+        long seriesId = createWeeklySeries();
+        Date startAt = Date.from(LocalDate.now().plusDays(1).atTime(18, 0).atZone(ZoneId.systemDefault()).toInstant());
+        SessionSeriesDto dto = new SessionSeriesDto(null, "Yoga du soir", "Chaque semaine",
+                testTeacher.getId(), 20, startAt, 7, null, null, null, null);
+
+        // Act
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/series/" + seriesId)
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Yoga du soir"))
+                .andExpect(jsonPath("$.capacity").value(20))
+                .andExpect(jsonPath("$.materializedUntil").exists());
+        entityManager.flush();
+        entityManager.clear();
+
+        // Assert
+        // Seules les occurrences à venir suivent la série : les séances déjà enregistrées se modifient une à une
+        assertTrue(sessionRepository.findAll().stream()
+                .filter(session -> session.getSeries() != null && session.getSeries().getId() == seriesId)
+                .allMatch(session -> session.getName().equals("Yoga hebdomadaire")));
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/series/" + (seriesId + 1000))
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testDeleteSeriesKeepsStoredSessions() throws Exception {
+        // Arrange
+        long seriesId = createWeeklySeries();
+        long before = sessionRepository.count();
+
+        // Act
+        mockMvc.perform(MockMvcRequestBuilders.delete("/api/series/" + seriesId)
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk());
+        entityManager.flush();
+        entityManager.clear();
+
+        // Assert
+        assertEquals(before, sessionRepository.count());
+        assertTrue(sessionRepository.findAll().stream().allMatch(session -> session.getSeries() == null));
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/series/" + seriesId)
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isNotFound());
+    }
+}
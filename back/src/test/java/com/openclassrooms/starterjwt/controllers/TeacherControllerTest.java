@@ -74,7 +74,7 @@ public class TeacherControllerTest {
         when(teacherMapper.toDto(teacher1)).thenReturn(teacherDto1);
 
         // Act
-        ResponseEntity<?> response = teacherController.findById("1");
+        ResponseEntity<?> response = teacherController.findById("1", null);
 
         // Assert
         assertEquals(HttpStatus.OK, response.getStatusCode());
@@ -89,7 +89,7 @@ public class TeacherControllerTest {
         when(teacherService.findById(999L)).thenReturn(null);
 
         // Act
-        ResponseEntity<?> response = teacherController.findById("999");
+        ResponseEntity<?> response = teacherController.findById("999", null);
 
         // Assert
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
@@ -100,7 +100,7 @@ public class TeacherControllerTest {
     @Test
     public void testFindByIdReturnsBadRequestWithInvalidId() {
         // Act
-        ResponseEntity<?> response = teacherController.findById("invalid");
+        ResponseEntity<?> response = teacherController.findById("invalid", null);
 
         // Assert
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
@@ -114,7 +114,7 @@ public class TeacherControllerTest {
         when(teacherMapper.toDto(teacherList)).thenReturn(teacherDtoList);
 
         // Act
-        ResponseEntity<?> response = teacherController.findAll();
+        ResponseEntity<?> response = teacherController.findAll(null);
 
         // Assert
         assertEquals(HttpStatus.OK, response.getStatusCode());
@@ -123,6 +123,35 @@ public class TeacherControllerTest {
         verify(teacherMapper).toDto(teacherList);
     }
 
+    @Test
+    public void testFindAllReturnsNotModifiedWhenCatalogueUnchanged() {
+        // Arrange
+        when(teacherService.getCatalogueVersion()).thenReturn("2:2:v1");
+        String etag = teacherController.findAll(null).getHeaders().getETag();
+
+        // Act
+        ResponseEntity<?> response = teacherController.findAll(etag);
+
+        // Assert
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getBody());
+        verify(teacherService, times(1)).findAll();
+    }
+
+    @Test
+    public void testFindAllReturnsBodyWhenCatalogueChanged() {
+        // Arrange
+        when(teacherService.getCatalogueVersion()).thenReturn("2:2:v1", "3:3:v2");
+        String etag = teacherController.findAll(null).getHeaders().getETag();
+
+        // Act
+        ResponseEntity<?> response = teacherController.findAll(etag);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotEquals(etag, response.getHeaders().getETag());
+    }
+
     @Test
     public void testFindAllReturnsEmptyListWhenNoTeachers() {
         // Arrange
@@ -130,7 +159,7 @@ public class TeacherControllerTest {
         when(teacherMapper.toDto(List.of())).thenReturn(List.of());
 
         // Act
-        ResponseEntity<?> response = teacherController.findAll();
+        ResponseEntity<?> response = teacherController.findAll(null);
 
         // Assert
         assertEquals(HttpStatus.OK, response.getStatusCode());
@@ -1,9 +1,16 @@
 package com.openclassrooms.starterjwt.controllers;
 
 import com.openclassrooms.starterjwt.dto.UserDto;
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.mapper.SessionMapper;
 import com.openclassrooms.starterjwt.mapper.UserMapper;
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import com.openclassrooms.starterjwt.payload.response.CursorPageResponse;
+import com.openclassrooms.starterjwt.repository.projection.SessionView;
+import com.openclassrooms.starterjwt.services.SessionCursor;
+import com.openclassrooms.starterjwt.services.SessionFilter;
+import com.openclassrooms.starterjwt.services.SessionService;
 import com.openclassrooms.starterjwt.services.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,6 +18,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -18,6 +26,10 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -33,6 +45,12 @@ public class UserControllerTest {
     @Mock
     private UserMapper userMapper;
 
+    @Mock
+    private SessionService sessionService;
+
+    @Mock
+    private SessionMapper sessionMapper;
+
     @Mock
     private SecurityContext securityContext;
 
@@ -179,4 +197,47 @@ public class UserControllerTest {
         verify(userService).findById(2L);
         verify(userService, never()).delete(anyLong());
     }
+
+    @Test
+    public void testFindSessionsReturnsPageOfUserSessions() {
+        // Arrange
+        SessionView sessionView = new SpelAwareProxyProjectionFactory().createProjection(SessionView.class,
+                Map.of("id", 5L, "date", new Date(1700000000000L)));
+        SessionDto sessionDto = new SessionDto();
+        sessionDto.setId(5L);
+        when(userService.findById(1L)).thenReturn(testUser);
+        when(sessionService.pageSize(1)).thenReturn(1);
+        when(sessionService.findFiltered(argThat(filter -> filter.getParticipantId().equals(1L)), isNull(), eq(1)))
+                .thenReturn(List.of(sessionView));
+        when(sessionService.findParticipantIds(List.of(5L))).thenReturn(Map.of(5L, List.of(1L)));
+        when(sessionMapper.toDto(List.of(sessionView), Map.of(5L, List.of(1L)))).thenReturn(List.of(sessionDto));
+
+        // Act
+        ResponseEntity<?> response = userController.findSessions("1", null, 1);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        CursorPageResponse<?> page = (CursorPageResponse<?>) response.getBody();
+        assertEquals(List.of(sessionDto), page.getContent());
+        // Page pleine : un curseur permet de demander la suite
+        assertEquals(SessionCursor.of(sessionView).encode(), page.getNextCursor());
+    }
+
+    @Test
+    public void testFindSessionsReturnsNotFoundForUnknownUser() {
+        // Arrange
+        when(userService.findById(999L)).thenReturn(null);
+
+        // Act
+        ResponseEntity<?> response = userController.findSessions("999", null, null);
+
+        // Assert
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        verify(sessionService, never()).findFiltered(any(SessionFilter.class), any(), anyInt());
+    }
+
+    @Test
+    public void testFindSessionsWithInvalidIdReturnsBadRequest() {
+        assertEquals(HttpStatus.BAD_REQUEST, userController.findSessions("invalid", null, null).getStatusCode());
+    }
 }
@@ -1,18 +1,25 @@
 package com.openclassrooms.starterjwt.mapper;
 
 import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
 import com.openclassrooms.starterjwt.models.Session;
 import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.repository.projection.SessionView;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.transaction.annotation.Transactional;
 
 
-import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -22,6 +29,9 @@ public class SessionMapperTest {
     @Autowired
     private SessionMapper sessionMapper;
 
+    @Autowired
+    private UserRepository userRepository;
+
     private Session session;
     private SessionDto sessionDto;
     private Teacher teacher;
@@ -61,7 +71,7 @@ public class SessionMapperTest {
         session.setDescription("Session de yoga pour bien commencer la journée");
         session.setDate(new java.util.Date());
         session.setTeacher(teacher);
-        session.setUsers(new ArrayList<>(users));
+        session.setUsers(new HashSet<>(users));
 
         // Création d'un DTO de session
         sessionDto = new SessionDto();
@@ -91,6 +101,38 @@ public class SessionMapperTest {
         assertTrue(result.getUsers().contains(2L));
     }
 
+    @Test
+    @Transactional
+    public void testToEntityResolvesUsersInOrder() {
+        // Arrange
+        List<User> saved = userRepository.saveAll(List.of(
+                new User("mapper-a@test.com", "A", "Mapper", "password", false),
+                new User("mapper-b@test.com", "B", "Mapper", "password", false),
+                new User("mapper-c@test.com", "C", "Mapper", "password", false)));
+        List<Long> ids = List.of(saved.get(2).getId(), saved.get(0).getId(), saved.get(1).getId());
+        sessionDto.setTeacher_id(null);
+        sessionDto.setUsers(ids);
+
+        // Act
+        Session result = sessionMapper.toEntity(sessionDto);
+
+        // Assert
+        // L'ordre des identifiants est conservé
+        assertEquals(ids, result.getUsers().stream().map(User::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    @Transactional
+    public void testToEntityRejectsUnknownUser() {
+        // Arrange
+        User saved = userRepository.save(new User("mapper-known@test.com", "Known", "Mapper", "password", false));
+        sessionDto.setTeacher_id(null);
+        sessionDto.setUsers(List.of(saved.getId(), -1L));
+
+        // Act & Assert
+        assertThrows(BadRequestException.class, () -> sessionMapper.toEntity(sessionDto));
+    }
+
     @Test
     public void testToDtoWithNullValues() {
         // Arrange
@@ -120,7 +162,7 @@ public class SessionMapperTest {
         session2.setDescription("Session de yoga pour les expérimentés");
         session2.setDate(new java.util.Date());
         session2.setTeacher(teacher);
-        session2.setUsers(new ArrayList<>());
+        session2.setUsers(new HashSet<>());
 
         List<Session> sessions = Arrays.asList(session, session2);
 
@@ -139,4 +181,27 @@ public class SessionMapperTest {
         assertEquals("Yoga avancé", result.get(1).getName());
         assertTrue(result.get(1).getUsers().isEmpty());
     }
+
+    @Test
+    public void testToDtoFromViews() {
+        // Arrange
+        SpelAwareProxyProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+        SessionView view1 = projectionFactory.createProjection(SessionView.class,
+                Map.of("id", 1L, "name", "Yoga matinal", "teacherId", 1L));
+        SessionView view2 = projectionFactory.createProjection(SessionView.class,
+                Map.of("id", 2L, "name", "Yoga avancé"));
+
+        // Act
+        List<SessionDto> result = sessionMapper.toDto(Arrays.asList(view1, view2), Map.of(1L, List.of(1L, 2L)));
+
+        // Assert
+        assertEquals(2, result.size());
+        assertEquals(1L, result.get(0).getId());
+        assertEquals("Yoga matinal", result.get(0).getName());
+        assertEquals(1L, result.get(0).getTeacher_id());
+        assertEquals(List.of(1L, 2L), result.get(0).getUsers());
+        assertEquals(2L, result.get(1).getId());
+        assertNull(result.get(1).getTeacher_id());
+        assertTrue(result.get(1).getUsers().isEmpty());
+    }
 }
@@ -4,9 +4,9 @@ import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.Date;
-import java.util.List;
+import java.util.HashSet;
+import java.util.Set;
 
 public class SessionTest {
 
@@ -25,11 +25,11 @@ public class SessionTest {
         Date date = new Date();
         String description = "A relaxing yoga session";
         Teacher teacher = new Teacher();
-        List<User> users = new ArrayList<>();
+        Set<User> users = new HashSet<>();
         LocalDateTime createdAt = LocalDateTime.now();
         LocalDateTime updatedAt = LocalDateTime.now();
         
-        Session session = new Session(id, name, date, description, teacher, users, createdAt, updatedAt);
+        Session session = new Session(id, name, date, description, teacher, users, 10, null, 0, createdAt, updatedAt, 0L);
         
         assertEquals(id, session.getId());
         assertEquals(name, session.getName());
@@ -37,6 +37,8 @@ public class SessionTest {
         assertEquals(description, session.getDescription());
         assertEquals(teacher, session.getTeacher());
         assertEquals(users, session.getUsers());
+        assertEquals(10, session.getCapacity());
+        assertEquals(0, session.getSeatsTaken());
         assertEquals(createdAt, session.getCreatedAt());
         assertEquals(updatedAt, session.getUpdatedAt());
     }
@@ -49,7 +51,7 @@ public class SessionTest {
         Date date = new Date();
         String description = "A relaxing yoga session";
         Teacher teacher = new Teacher();
-        List<User> users = new ArrayList<>();
+        Set<User> users = new HashSet<>();
         LocalDateTime createdAt = LocalDateTime.now();
         LocalDateTime updatedAt = LocalDateTime.now();
         
@@ -99,7 +101,7 @@ public class SessionTest {
         session.setTeacher(teacher);
         assertEquals(teacher, session.getTeacher());
         
-        List<User> users = new ArrayList<>();
+        Set<User> users = new HashSet<>();
         User user = new User();
         user.setId(1L);
         users.add(user);
@@ -150,7 +152,7 @@ public class SessionTest {
     public void testChaining() {
         Date date = new Date();
         Teacher teacher = new Teacher();
-        List<User> users = new ArrayList<>();
+        Set<User> users = new HashSet<>();
         
         Session session = new Session()
                 .setName("Yoga Session")
@@ -169,7 +171,7 @@ public class SessionTest {
     @Test
     public void testUsersManagement() {
         Session session = new Session();
-        List<User> users = new ArrayList<>();
+        Set<User> users = new HashSet<>();
         
         // Ajouter des utilisateurs
         User user1 = new User();
@@ -185,13 +187,13 @@ public class SessionTest {
         
         session.setUsers(users);
         
-        // Vérifier que la liste contient bien les deux utilisateurs
+        // Vérifier que l'ensemble contient bien les deux utilisateurs
         assertEquals(2, session.getUsers().size());
         assertTrue(session.getUsers().contains(user1));
         assertTrue(session.getUsers().contains(user2));
         
-        // Vérifier qu'on peut modifier la liste
-        users = new ArrayList<>();
+        // Vérifier qu'on peut remplacer l'ensemble
+        users = new HashSet<>();
         User user3 = new User();
         user3.setId(3L);
         user3.setEmail("user3@example.com");
@@ -0,0 +1,79 @@
+package com.openclassrooms.starterjwt.security;
+
+import com.openclassrooms.starterjwt.exception.ServiceUnavailableException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class BoundedPasswordEncoderTest {
+
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    public void tearDown() {
+        encoder.shutdown();
+    }
+
+    @Test
+    public void testEncodeAndMatches() {
+        // Arrange
+        encoder = new BoundedPasswordEncoder(4, 1, 1);
+
+        // Act
+        String encoded = encoder.encode("password");
+
+        // Assert
+        assertTrue(encoded.startsWith("$2a$04$"));
+        assertTrue(encoder.matches("password", encoded));
+        assertFalse(encoder.matches("wrong", encoded));
+        assertEquals(0, encoder.getRejectedCount());
+    }
+
+    @Test
+    public void testUpgradeEncodingWhenCostDiffers() {
+        // Arrange
+        encoder = new BoundedPasswordEncoder(5, 1, 1);
+
+        // Act & Assert
+        assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("password")));
+        assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode("password")));
+        assertFalse(encoder.upgradeEncoding(new BCryptPasswordEncoder(5).encode("password")));
+        assertFalse(encoder.upgradeEncoding(null));
+    }
+
+    @Test
+    public void testRejectsWhenWorkersAndQueueAreFull() throws Exception {
+        // Arrange
+        // L'encodeur délégué reste bloqué tant que le verrou n'est pas levé
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder blocking = mock(PasswordEncoder.class);
+        when(blocking.encode(any())).thenAnswer(invocation -> {
+            release.await();
+            return "encoded";
+        });
+        encoder = new BoundedPasswordEncoder(blocking, 4, 1, 1);
+
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        callers.submit(() -> encoder.encode("first"));
+        callers.submit(() -> encoder.encode("second"));
+        while (encoder.getActiveCount() < 1 || encoder.getQueueDepth() < 1) {
+            Thread.sleep(10);
+        }
+
+        // Act & Assert
+        assertThrows(ServiceUnavailableException.class, () -> encoder.encode("third"));
+        assertEquals(1, encoder.getRejectedCount());
+
+        release.countDown();
+        callers.shutdown();
+    }
+}
@@ -2,6 +2,8 @@ package com.openclassrooms.starterjwt.security.jwt;
 
 import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
 import com.openclassrooms.starterjwt.security.services.UserDetailsServiceImpl;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -29,6 +31,12 @@ public class AuthTokenFilterTest {
     @Mock
     private JwtUtils jwtUtils;
 
+    @Mock
+    private JwtClaimsCache jwtClaimsCache;
+
+    @Mock
+    private JwtRevocationCache jwtRevocationCache;
+
     @Mock
     private UserDetailsServiceImpl userDetailsService;
 
@@ -64,8 +72,7 @@ public class AuthTokenFilterTest {
         String authHeader = "Bearer " + validToken;
         
         when(request.getHeader("Authorization")).thenReturn(authHeader);
-        when(jwtUtils.validateJwtToken(validToken)).thenReturn(true);
-        when(jwtUtils.getUserNameFromJwtToken(validToken)).thenReturn("test@test.com");
+        when(jwtClaimsCache.getValidatedClaims(validToken)).thenReturn(Jwts.claims().setSubject("test@test.com"));
         when(userDetailsService.loadUserByUsername("test@test.com")).thenReturn(userDetails);
         
         // Act
@@ -73,8 +80,7 @@ public class AuthTokenFilterTest {
         
         // Assert
         verify(request).getHeader("Authorization");
-        verify(jwtUtils).validateJwtToken(validToken);
-        verify(jwtUtils).getUserNameFromJwtToken(validToken);
+        verify(jwtClaimsCache).getValidatedClaims(validToken);
         verify(userDetailsService).loadUserByUsername("test@test.com");
         verify(filterChain).doFilter(request, response);
         
@@ -83,6 +89,46 @@ public class AuthTokenFilterTest {
         assertEquals(userDetails, SecurityContextHolder.getContext().getAuthentication().getPrincipal());
     }
     
+    @Test
+    public void testDoFilterInternalRebuildsPrincipalFromClaims() throws ServletException, IOException {
+        // Arrange
+        String validToken = "validToken";
+        Claims claims = Jwts.claims().setSubject("test@test.com");
+
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + validToken);
+        when(jwtClaimsCache.getValidatedClaims(validToken)).thenReturn(claims);
+        when(jwtUtils.getUserDetailsFromClaims(claims)).thenReturn(userDetails);
+
+        // Act
+        authTokenFilter.doFilterInternal(request, response, filterChain);
+
+        // Assert
+        // Aucun accès à la base de données pour reconstruire l'utilisateur
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+        verify(jwtRevocationCache).isRevoked(1L, null);
+        verify(filterChain).doFilter(request, response);
+        assertEquals(userDetails, SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+    }
+
+    @Test
+    public void testDoFilterInternalIgnoresRevokedToken() throws ServletException, IOException {
+        // Arrange
+        String validToken = "validToken";
+        Claims claims = Jwts.claims().setSubject("test@test.com");
+
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + validToken);
+        when(jwtClaimsCache.getValidatedClaims(validToken)).thenReturn(claims);
+        when(jwtUtils.getUserDetailsFromClaims(claims)).thenReturn(userDetails);
+        when(jwtRevocationCache.isRevoked(1L, null)).thenReturn(true);
+
+        // Act
+        authTokenFilter.doFilterInternal(request, response, filterChain);
+
+        // Assert
+        verify(filterChain).doFilter(request, response);
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
     @Test
     public void testDoFilterInternalWithInvalidToken() throws ServletException, IOException {
         // Arrange
@@ -90,15 +136,14 @@ public class AuthTokenFilterTest {
         String authHeader = "Bearer " + invalidToken;
         
         when(request.getHeader("Authorization")).thenReturn(authHeader);
-        when(jwtUtils.validateJwtToken(invalidToken)).thenReturn(false);
+        when(jwtClaimsCache.getValidatedClaims(invalidToken)).thenReturn(null);
         
         // Act
         authTokenFilter.doFilterInternal(request, response, filterChain);
         
         // Assert
         verify(request).getHeader("Authorization");
-        verify(jwtUtils).validateJwtToken(invalidToken);
-        verify(jwtUtils, never()).getUserNameFromJwtToken(anyString());
+        verify(jwtClaimsCache).getValidatedClaims(invalidToken);
         verify(userDetailsService, never()).loadUserByUsername(anyString());
         verify(filterChain).doFilter(request, response);
         
@@ -116,8 +161,7 @@ public class AuthTokenFilterTest {
         
         // Assert
         verify(request).getHeader("Authorization");
-        verify(jwtUtils, never()).validateJwtToken(anyString());
-        verify(jwtUtils, never()).getUserNameFromJwtToken(anyString());
+        verify(jwtClaimsCache, never()).getValidatedClaims(anyString());
         verify(userDetailsService, never()).loadUserByUsername(anyString());
         verify(filterChain).doFilter(request, response);
         
@@ -135,8 +179,7 @@ public class AuthTokenFilterTest {
         
         // Assert
         verify(request).getHeader("Authorization");
-        verify(jwtUtils, never()).validateJwtToken(anyString());
-        verify(jwtUtils, never()).getUserNameFromJwtToken(anyString());
+        verify(jwtClaimsCache, never()).getValidatedClaims(anyString());
         verify(userDetailsService, never()).loadUserByUsername(anyString());
         verify(filterChain).doFilter(request, response);
         
@@ -151,8 +194,7 @@ public class AuthTokenFilterTest {
         String authHeader = "Bearer " + validToken;
         
         when(request.getHeader("Authorization")).thenReturn(authHeader);
-        when(jwtUtils.validateJwtToken(validToken)).thenReturn(true);
-        when(jwtUtils.getUserNameFromJwtToken(validToken)).thenReturn("test@test.com");
+        when(jwtClaimsCache.getValidatedClaims(validToken)).thenReturn(Jwts.claims().setSubject("test@test.com"));
         when(userDetailsService.loadUserByUsername("test@test.com")).thenThrow(new RuntimeException("Test exception"));
         
         // Act
@@ -160,8 +202,7 @@ public class AuthTokenFilterTest {
         
         // Assert
         verify(request).getHeader("Authorization");
-        verify(jwtUtils).validateJwtToken(validToken);
-        verify(jwtUtils).getUserNameFromJwtToken(validToken);
+        verify(jwtClaimsCache).getValidatedClaims(validToken);
         verify(userDetailsService).loadUserByUsername("test@test.com");
         verify(filterChain).doFilter(request, response);
         
@@ -0,0 +1,89 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class JwtClaimsCacheTest {
+
+    @Mock
+    private Authentication authentication;
+
+    private JwtUtils jwtUtils;
+
+    private JwtClaimsCache jwtClaimsCache;
+
+    @BeforeEach
+    public void setUp() {
+        // JwtUtils réel espionné pour compter les vérifications de signature
+        jwtUtils = spy(new JwtUtils());
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", "testSecretKey123456789012345678901234567890");
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 60000);
+        jwtClaimsCache = new JwtClaimsCache(jwtUtils, 100);
+    }
+
+    private String generateToken() {
+        UserDetailsImpl userDetails = UserDetailsImpl.builder()
+                .id(1L)
+                .username("testuser@example.com")
+                .firstName("Test")
+                .lastName("User")
+                .password("password")
+                .build();
+        when(authentication.getPrincipal()).thenReturn(userDetails);
+
+        return jwtUtils.generateJwtToken(authentication);
+    }
+
+    @Test
+    public void testRepeatedTokenIsVerifiedOnce() {
+        // Arrange
+        String token = generateToken();
+
+        // Act
+        Claims first = jwtClaimsCache.getValidatedClaims(token);
+        Claims second = jwtClaimsCache.getValidatedClaims(token);
+
+        // Assert
+        assertEquals("testuser@example.com", first.getSubject());
+        assertSame(first, second);
+        verify(jwtUtils, times(1)).parseValidatedClaims(token);
+        assertEquals(1, jwtClaimsCache.getHitCount());
+        assertEquals(1, jwtClaimsCache.getMissCount());
+    }
+
+    @Test
+    public void testInvalidTokenIsNotCached() {
+        // Act
+        assertNull(jwtClaimsCache.getValidatedClaims("invalidToken"));
+        assertNull(jwtClaimsCache.getValidatedClaims("invalidToken"));
+
+        // Assert
+        verify(jwtUtils, times(2)).parseValidatedClaims("invalidToken");
+        assertEquals(0, jwtClaimsCache.getSize());
+    }
+
+    @Test
+    public void testExpiredTokenIsNoLongerServed() throws InterruptedException {
+        // Arrange
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 1000);
+        String token = generateToken();
+        assertNotNull(jwtClaimsCache.getValidatedClaims(token));
+
+        // Attendre que le token expire (configuré à 1 seconde)
+        Thread.sleep(1100);
+
+        // Act & Assert
+        assertNull(jwtClaimsCache.getValidatedClaims(token));
+    }
+}
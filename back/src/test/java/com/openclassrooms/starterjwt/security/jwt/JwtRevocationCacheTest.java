@@ -0,0 +1,44 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JwtRevocationCacheTest {
+
+    @Test
+    public void testTokenIssuedBeforeRevocationIsRevoked() {
+        // Arrange
+        JwtRevocationCache cache = new JwtRevocationCache(true, 60000);
+        Date issuedAt = new Date(System.currentTimeMillis() - 1000);
+
+        // Act
+        cache.revoke(1L);
+
+        // Assert
+        assertTrue(cache.isRevoked(1L, issuedAt));
+        assertFalse(cache.isRevoked(2L, issuedAt));
+    }
+
+    @Test
+    public void testTokenIssuedAfterRevocationIsAccepted() {
+        // Arrange
+        JwtRevocationCache cache = new JwtRevocationCache(true, 60000);
+        cache.revoke(1L);
+
+        // Act & Assert
+        assertFalse(cache.isRevoked(1L, new Date(System.currentTimeMillis() + 1000)));
+    }
+
+    @Test
+    public void testDisabledCheckNeverRevokes() {
+        // Arrange
+        JwtRevocationCache cache = new JwtRevocationCache(false, 60000);
+        cache.revoke(1L);
+
+        // Act & Assert
+        assertFalse(cache.isRevoked(1L, new Date(0)));
+    }
+}
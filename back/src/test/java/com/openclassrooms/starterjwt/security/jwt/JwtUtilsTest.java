@@ -1,7 +1,9 @@
 package com.openclassrooms.starterjwt.security.jwt;
 
 import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -81,6 +83,47 @@ public class JwtUtilsTest {
         assertTrue(isValid);
     }
 
+    @Test
+    public void testParseValidatedClaims() {
+        // Arrange
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 60000);
+        when(authentication.getPrincipal()).thenReturn(userDetails);
+        String token = jwtUtils.generateJwtToken(authentication);
+
+        // Act
+        Claims claims = jwtUtils.parseValidatedClaims(token);
+
+        // Assert
+        assertEquals("testuser@example.com", claims.getSubject());
+        assertNotNull(claims.getExpiration());
+        assertNull(jwtUtils.parseValidatedClaims("invalidToken"));
+    }
+
+    @Test
+    public void testGetUserDetailsFromClaims() {
+        // Arrange
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 60000);
+        when(authentication.getPrincipal()).thenReturn(userDetails);
+        String token = jwtUtils.generateJwtToken(authentication);
+
+        // Act
+        UserDetailsImpl result = jwtUtils.getUserDetailsFromClaims(jwtUtils.parseValidatedClaims(token));
+
+        // Assert
+        assertEquals(1L, result.getId());
+        assertEquals("testuser@example.com", result.getUsername());
+        assertEquals("Test", result.getFirstName());
+        assertEquals("User", result.getLastName());
+        assertFalse(result.getAdmin());
+        assertNull(result.getPassword());
+    }
+
+    @Test
+    public void testGetUserDetailsFromLegacyClaimsReturnsNull() {
+        // Act & Assert
+        assertNull(jwtUtils.getUserDetailsFromClaims(Jwts.claims().setSubject("testuser@example.com")));
+    }
+
     @Test
     public void testValidateJwtTokenWithInvalidToken() {
         // Act
@@ -5,13 +5,15 @@ import com.openclassrooms.starterjwt.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -19,9 +21,10 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 public class UserDetailsServiceImplTest {
 
-    @InjectMocks
     private UserDetailsServiceImpl userDetailsService;
 
+    private UserDetailsCache userDetailsCache;
+
     @Mock
     private UserRepository userRepository;
 
@@ -29,6 +32,9 @@ public class UserDetailsServiceImplTest {
 
     @BeforeEach
     public void setup() {
+        userDetailsCache = new UserDetailsCache(100, 60000);
+        userDetailsService = new UserDetailsServiceImpl(userRepository, userDetailsCache);
+
         // Configuration de l'utilisateur de test
         testUser = new User();
         testUser.setId(1L);
@@ -57,10 +63,30 @@ public class UserDetailsServiceImplTest {
         assertEquals("John", userDetailsImpl.getFirstName());
         assertEquals("Doe", userDetailsImpl.getLastName());
         assertEquals("encodedPassword", userDetailsImpl.getPassword());
+        assertFalse(userDetailsImpl.getAdmin());
+        assertEquals(List.of("ROLE_USER"), authorities(userDetailsImpl));
         
         verify(userRepository).findByEmail("test@test.com");
     }
 
+    @Test
+    public void testLoadAdminGrantsAdminRole() {
+        // Arrange
+        testUser.setAdmin(true);
+        when(userRepository.findByEmail("test@test.com")).thenReturn(Optional.of(testUser));
+
+        // Act
+        UserDetailsImpl userDetails = (UserDetailsImpl) userDetailsService.loadUserByUsername("test@test.com");
+
+        // Assert
+        assertTrue(userDetails.getAdmin());
+        assertEquals(List.of("ROLE_USER", "ROLE_ADMIN"), authorities(userDetails));
+    }
+
+    private List<String> authorities(UserDetails userDetails) {
+        return userDetails.getAuthorities().stream().map(GrantedAuthority::getAuthority).collect(Collectors.toList());
+    }
+
     @Test
     public void testLoadUserByUsernameThrowsExceptionWhenUserNotFound() {
         // Arrange
@@ -74,4 +100,69 @@ public class UserDetailsServiceImplTest {
         assertTrue(exception.getMessage().contains("User Not Found with email: nonexistent@test.com"));
         verify(userRepository).findByEmail("nonexistent@test.com");
     }
+
+    @Test
+    public void testLoadUserByUsernameIsServedFromCache() {
+        // Arrange
+        when(userRepository.findByEmail("test@test.com")).thenReturn(Optional.of(testUser));
+
+        // Act
+        UserDetails first = userDetailsService.loadUserByUsername("test@test.com");
+        UserDetails second = userDetailsService.loadUserByUsername("test@test.com");
+
+        // Assert
+        assertSame(first, second);
+        verify(userRepository, times(1)).findByEmail("test@test.com");
+        assertEquals(1, userDetailsCache.getHitCount());
+        assertEquals(1, userDetailsCache.getMissCount());
+        assertEquals(0.5, userDetailsCache.getHitRate());
+    }
+
+    @Test
+    public void testEvictedUserIsReloaded() {
+        // Arrange
+        when(userRepository.findByEmail("test@test.com")).thenReturn(Optional.of(testUser));
+        userDetailsService.loadUserByUsername("test@test.com");
+
+        // Act
+        userDetailsCache.evict(1L);
+        userDetailsService.loadUserByUsername("test@test.com");
+        userDetailsCache.evict("test@test.com");
+        userDetailsService.loadUserByUsername("test@test.com");
+
+        // Assert
+        verify(userRepository, times(3)).findByEmail("test@test.com");
+    }
+
+    @Test
+    public void testUnknownUserIsNotCached() {
+        // Arrange
+        when(userRepository.findByEmail("nonexistent@test.com")).thenReturn(Optional.empty());
+
+        // Act
+        assertThrows(UsernameNotFoundException.class, () -> userDetailsService.loadUserByUsername("nonexistent@test.com"));
+        assertThrows(UsernameNotFoundException.class, () -> userDetailsService.loadUserByUsername("nonexistent@test.com"));
+
+        // Assert
+        verify(userRepository, times(2)).findByEmail("nonexistent@test.com");
+    }
+
+    @Test
+    public void testUpdatePasswordStoresNewHashAndEvictsCache() {
+        // Arrange
+        when(userRepository.findByEmail("test@test.com")).thenReturn(Optional.of(testUser));
+        UserDetails userDetails = userDetailsService.loadUserByUsername("test@test.com");
+
+        // Act
+        UserDetails updated = userDetailsService.updatePassword(userDetails, "newEncodedPassword");
+
+        // Assert
+        verify(userRepository).updatePassword("test@test.com", "newEncodedPassword");
+        assertEquals("newEncodedPassword", updated.getPassword());
+        assertEquals(1L, ((UserDetailsImpl) updated).getId());
+
+        // Le prochain chargement relit la base
+        userDetailsService.loadUserByUsername("test@test.com");
+        verify(userRepository, times(2)).findByEmail("test@test.com");
+    }
 }
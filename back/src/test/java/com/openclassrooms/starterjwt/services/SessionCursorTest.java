@@ -0,0 +1,34 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.repository.projection.SessionView;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+
+import java.util.Date;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SessionCursorTest {
+
+    @Test
+    public void testEncodeDecodeRoundTrip() {
+        // Arrange
+        SessionView session = new SpelAwareProxyProjectionFactory().createProjection(SessionView.class,
+                Map.of("id", 42L, "date", new Date(1700000000000L)));
+
+        // Act
+        SessionCursor cursor = SessionCursor.decode(SessionCursor.of(session).encode());
+
+        // Assert
+        assertEquals(42L, cursor.getId());
+        assertEquals(1700000000000L, cursor.getDate().getTime());
+    }
+
+    @Test
+    public void testDecodeRejectsMalformedToken() {
+        assertThrows(BadRequestException.class, () -> SessionCursor.decode("not a cursor"));
+        assertThrows(BadRequestException.class, () -> SessionCursor.decode("Zm9vOmJhcg"));
+    }
+}
@@ -0,0 +1,206 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.exception.ServiceUnavailableException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SessionEventBroadcasterTest {
+
+    private SessionEventBroadcaster broadcaster;
+
+    @AfterEach
+    public void tearDown() {
+        if (broadcaster != null) {
+            broadcaster.shutdown();
+        }
+    }
+
+    @Test
+    public void testEventsAreDeliveredInOrder() throws InterruptedException {
+        // Arrange
+        broadcaster = new SessionEventBroadcaster(64, 10, 60000, 2, 3600000, 3600000);
+        RecordingEmitter emitter = new RecordingEmitter(3);
+        broadcaster.subscribe(emitter);
+
+        // Act
+        broadcaster.onSessionChange(new SessionChangeEvent(SessionChangeEvent.Type.CREATED, 1L, null));
+        broadcaster.onSessionChange(new SessionChangeEvent(SessionChangeEvent.Type.PARTICIPATED, 1L, 2L));
+        broadcaster.onSessionChange(new SessionChangeEvent(SessionChangeEvent.Type.DELETED, 1L, null));
+
+        // Assert
+        assertTrue(emitter.received.await(5, TimeUnit.SECONDS));
+        List<String> names = emitter.events.stream()
+                .map(event -> event.contains("event:created") ? "created"
+                        : event.contains("event:participated") ? "participated"
+                        : event.contains("event:deleted") ? "deleted" : "?")
+                .collect(Collectors.toList());
+        assertEquals(List.of("created", "participated", "deleted"), names);
+    }
+
+    @Test
+    public void testSlowSubscriberIsEvictedWithoutBlockingOthers() throws InterruptedException {
+        // Arrange
+        broadcaster = new SessionEventBroadcaster(2, 10, 60000, 2, 3600000, 3600000);
+        CountDownLatch release = new CountDownLatch(1);
+        BlockingEmitter slow = new BlockingEmitter(release);
+        RecordingEmitter fast = new RecordingEmitter(5);
+        broadcaster.subscribe(slow);
+        broadcaster.subscribe(fast);
+
+        // Act
+        // Le premier événement bloque l'envoi au client lent, les suivants remplissent son tampon
+        broadcaster.onSessionChange(new SessionChangeEvent(SessionChangeEvent.Type.UPDATED, 1L, null));
+        assertTrue(slow.sending.await(5, TimeUnit.SECONDS));
+        assertTrue(fast.sent.tryAcquire(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 4; i++) {
+            broadcaster.onSessionChange(new SessionChangeEvent(SessionChangeEvent.Type.UPDATED, 1L, null));
+            assertTrue(fast.sent.tryAcquire(5, TimeUnit.SECONDS));
+        }
+
+        // Assert
+        // Le client rapide a tout reçu alors que le client lent est toujours bloqué
+        assertEquals(5, fast.events.size());
+        assertEquals(1, broadcaster.getSubscriberCount());
+        release.countDown();
+        assertTrue(slow.completed.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testStalledSubscribersAreEvictedWithoutStarvingOthers() throws InterruptedException {
+        // Arrange
+        // Deux clients bloqués occupent les deux threads de diffusion
+        broadcaster = new SessionEventBroadcaster(64, 10, 60000, 2, 3600000, 100);
+        CountDownLatch release = new CountDownLatch(1);
+        BlockingEmitter stalled1 = new BlockingEmitter(release);
+        BlockingEmitter stalled2 = new BlockingEmitter(release);
+        broadcaster.subscribe(stalled1);
+        broadcaster.subscribe(stalled2);
+        broadcaster.onSessionChange(new SessionChangeEvent(SessionChangeEvent.Type.UPDATED, 1L, null));
+        assertTrue(stalled1.sending.await(5, TimeUnit.SECONDS));
+        assertTrue(stalled2.sending.await(5, TimeUnit.SECONDS));
+        RecordingEmitter fast = new RecordingEmitter(5);
+        broadcaster.subscribe(fast);
+
+        // Act
+        for (int i = 0; i < 5; i++) {
+            broadcaster.onSessionChange(new SessionChangeEvent(SessionChangeEvent.Type.UPDATED, 1L, null));
+        }
+
+        // Assert
+        // Les clients bloqués sont déconnectés par le délai d'écriture, le client sain reçoit tout
+        assertTrue(fast.received.await(5, TimeUnit.SECONDS));
+        assertEquals(5, fast.events.size());
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (broadcaster.getSubscriberCount() > 1 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, broadcaster.getSubscriberCount());
+        release.countDown();
+        assertTrue(stalled1.completed.await(5, TimeUnit.SECONDS));
+        assertTrue(stalled2.completed.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testImportIsDeliveredAsSingleEvent() throws InterruptedException {
+        // Arrange
+        broadcaster = new SessionEventBroadcaster(64, 10, 60000, 1, 3600000, 3600000);
+        RecordingEmitter emitter = new RecordingEmitter(1);
+        broadcaster.subscribe(emitter);
+
+        // Act
+        broadcaster.onSessionsImported(new SessionsImportedEvent(List.of(1L, 2L, 3L)));
+
+        // Assert
+        assertTrue(emitter.received.await(5, TimeUnit.SECONDS));
+        assertEquals(1, emitter.events.size());
+        assertTrue(emitter.events.get(0).startsWith("event:imported"));
+    }
+
+    @Test
+    public void testHeartbeatIsSentAsComment() throws InterruptedException {
+        // Arrange
+        broadcaster = new SessionEventBroadcaster(64, 10, 60000, 1, 3600000, 3600000);
+        RecordingEmitter emitter = new RecordingEmitter(1);
+        broadcaster.subscribe(emitter);
+
+        // Act
+        broadcaster.sendHeartbeat();
+
+        // Assert
+        assertTrue(emitter.received.await(5, TimeUnit.SECONDS));
+        assertTrue(emitter.events.get(0).startsWith(":heartbeat"));
+    }
+
+    @Test
+    public void testSubscribeRejectsOverLimit() {
+        // Arrange
+        broadcaster = new SessionEventBroadcaster(64, 1, 60000, 1, 3600000, 3600000);
+        broadcaster.subscribe(new RecordingEmitter(1));
+
+        // Act & Assert
+        assertThrows(ServiceUnavailableException.class, () -> broadcaster.subscribe(new RecordingEmitter(1)));
+        assertEquals(1, broadcaster.getSubscriberCount());
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+        private final List<String> events = new CopyOnWriteArrayList<>();
+
+        private final CountDownLatch received;
+
+        private final Semaphore sent = new Semaphore(0);
+
+        private RecordingEmitter(int expected) {
+            this.received = new CountDownLatch(expected);
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            Set<DataWithMediaType> parts = builder.build();
+            this.events.add(parts.stream()
+                    .map(part -> String.valueOf(part.getData()))
+                    .collect(Collectors.joining()));
+            this.received.countDown();
+            this.sent.release();
+        }
+    }
+
+    private static class BlockingEmitter extends SseEmitter {
+        private final CountDownLatch sending = new CountDownLatch(1);
+
+        private final CountDownLatch completed = new CountDownLatch(1);
+
+        private final CountDownLatch release;
+
+        private BlockingEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void complete() {
+            this.completed.countDown();
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            this.sending.countDown();
+            try {
+                this.release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SessionFilterTest {
+
+    @Test
+    public void testStartUsesCursorInsideRange() {
+        // Arrange
+        SessionFilter filter = new SessionFilter(new Date(1000L), new Date(5000L), null, null);
+
+        // Act & Assert
+        // Sans curseur, ou avec un curseur avant le début de la plage, la recherche part de "from"
+        assertEquals(new Date(1000L), filter.start(null).getDate());
+        assertEquals(0L, filter.start(null).getId());
+        assertEquals(new Date(1000L), filter.start(new SessionCursor(new Date(500L), 7L)).getDate());
+        assertEquals(7L, filter.start(new SessionCursor(new Date(2000L), 7L)).getId());
+        assertEquals(new Date(5000L), filter.end());
+    }
+
+    @Test
+    public void testOpenBoundsUseSentinels() {
+        // Arrange
+        SessionFilter filter = new SessionFilter(null, null, 1L, null);
+
+        // Act & Assert
+        assertFalse(filter.isEmpty());
+        assertEquals(SessionFilter.BEGINNING, filter.start(null).getDate());
+        assertEquals(SessionFilter.END, filter.end());
+        assertTrue(new SessionFilter(null, null, null, null).isEmpty());
+    }
+
+    @Test
+    public void testRejectsEmptyRange() {
+        assertThrows(BadRequestException.class, () -> new SessionFilter(new Date(5000L), new Date(5000L), null, null));
+    }
+}
@@ -0,0 +1,117 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.projection.SessionView;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SessionSearchIndexTest {
+
+    @InjectMocks
+    private SessionSearchIndex sessionSearchIndex;
+
+    @Mock
+    private SessionRepository sessionRepository;
+
+    private static SessionView view(Long id, String name, String description) {
+        Map<String, Object> values = new HashMap<>();
+        values.put("id", id);
+        values.put("name", name);
+        values.put("description", description);
+        values.put("date", new Date(id * 1000));
+        return new SpelAwareProxyProjectionFactory().createProjection(SessionView.class, values);
+    }
+
+    @Test
+    public void testSearchRanksNameAboveDescription() {
+        // Arrange
+        sessionSearchIndex.index(view(1L, "Yoga doux", "Une séance de méditation guidée"));
+        sessionSearchIndex.index(view(2L, "Méditation du soir", "Pour se détendre"));
+        sessionSearchIndex.index(view(3L, "Vinyasa", "Enchaînements dynamiques"));
+
+        // Act
+        List<Long> result = sessionSearchIndex.search("meditation", 10);
+
+        // Assert
+        // Le terme dans le nom pèse plus que dans la description
+        assertEquals(List.of(2L, 1L), result);
+    }
+
+    @Test
+    public void testSearchIgnoresCaseAndAccentsAndMatchesLastTermAsPrefix() {
+        // Arrange
+        sessionSearchIndex.index(view(1L, "Yoga énergisant", "Réveil en douceur"));
+        sessionSearchIndex.index(view(2L, "Pilates", "Renforcement"));
+
+        // Act & Assert
+        assertEquals(List.of(1L), sessionSearchIndex.search("ENERGIS", 10));
+        assertEquals(List.of(1L), sessionSearchIndex.search("reveil douc", 10));
+        assertEquals(Collections.emptyList(), sessionSearchIndex.search("!!", 10));
+    }
+
+    @Test
+    public void testSearchAppliesLimit() {
+        // Arrange
+        for (long id = 1; id <= 5; id++) {
+            sessionSearchIndex.index(view(id, "Yoga " + id, "Description"));
+        }
+
+        // Act & Assert
+        assertEquals(2, sessionSearchIndex.search("yoga", 2).size());
+    }
+
+    @Test
+    public void testSessionChangesUpdateIndex() {
+        // Arrange
+        when(sessionRepository.findViewById(1L)).thenReturn(Optional.of(view(1L, "Hatha", "Postures")));
+        sessionSearchIndex.onSessionChange(new SessionChangeEvent(SessionChangeEvent.Type.CREATED, 1L, null));
+        when(sessionRepository.findViewById(1L)).thenReturn(Optional.of(view(1L, "Ashtanga", "Postures")));
+
+        // Act
+        sessionSearchIndex.onSessionChange(new SessionChangeEvent(SessionChangeEvent.Type.UPDATED, 1L, null));
+
+        // Assert
+        // Les anciens termes ne renvoient plus la session
+        assertEquals(Collections.emptyList(), sessionSearchIndex.search("hatha", 10));
+        assertEquals(List.of(1L), sessionSearchIndex.search("ashtanga", 10));
+
+        // Act
+        sessionSearchIndex.onSessionChange(new SessionChangeEvent(SessionChangeEvent.Type.DELETED, 1L, null));
+
+        // Assert
+        assertEquals(Collections.emptyList(), sessionSearchIndex.search("postures", 10));
+        assertEquals(0, sessionSearchIndex.size());
+    }
+
+    @Test
+    public void testRebuildLoadsAllSessionsInBatches() {
+        // Arrange
+        when(sessionRepository.findViews(any(Pageable.class)))
+                .thenReturn(List.of(view(1L, "Yoga", "Matin"), view(2L, "Pilates", "Soir")));
+
+        // Act
+        sessionSearchIndex.rebuild();
+
+        // Assert
+        assertEquals(2, sessionSearchIndex.size());
+        assertEquals(List.of(2L), sessionSearchIndex.search("soir", 10));
+        // Un lot incomplet signifie que toutes les sessions ont été lues
+        verify(sessionRepository, never()).findViewsAfter(any(Date.class), anyLong(), any(Pageable.class));
+    }
+}
@@ -0,0 +1,78 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.models.SessionSeries;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SessionSeriesExpanderTest {
+
+    private static Date at(LocalDateTime dateTime) {
+        return Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    private static SessionSeries weekly(Date endAt) {
+        return SessionSeries.builder()
+                .name("Yoga du lundi")
+                .startAt(at(LocalDateTime.of(2030, 1, 7, 18, 0)))
+                .intervalDays(7)
+                .endAt(endAt)
+                .build();
+    }
+
+    @Test
+    public void testOccurrencesWithinRange() {
+        // Act
+        List<Date> dates = SessionSeriesExpander.occurrences(weekly(null),
+                at(LocalDateTime.of(2030, 1, 10, 0, 0)), at(LocalDateTime.of(2030, 1, 29, 0, 0)));
+
+        // Assert
+        assertEquals(List.of(
+                at(LocalDateTime.of(2030, 1, 14, 18, 0)),
+                at(LocalDateTime.of(2030, 1, 21, 18, 0)),
+                at(LocalDateTime.of(2030, 1, 28, 18, 0))), dates);
+    }
+
+    @Test
+    public void testOccurrencesIncludeLowerBoundAndExcludeUpperBound() {
+        // Act
+        List<Date> dates = SessionSeriesExpander.occurrences(weekly(null),
+                at(LocalDateTime.of(2030, 1, 7, 18, 0)), at(LocalDateTime.of(2030, 1, 14, 18, 0)));
+
+        // Assert
+        assertEquals(List.of(at(LocalDateTime.of(2030, 1, 7, 18, 0))), dates);
+    }
+
+    @Test
+    public void testOccurrencesStopAtEndOfSeries() {
+        // Arrange
+        SessionSeries series = weekly(at(LocalDateTime.of(2030, 1, 21, 18, 0)));
+
+        // Act
+        List<Date> dates = SessionSeriesExpander.occurrences(series,
+                at(LocalDateTime.of(2030, 1, 1, 0, 0)), at(LocalDateTime.of(2030, 3, 1, 0, 0)));
+
+        // Assert
+        assertEquals(2, dates.size());
+        assertEquals(at(LocalDateTime.of(2030, 1, 14, 18, 0)), dates.get(1));
+    }
+
+    @Test
+    public void testOccurrencesFarFromStartKeepWallClockTime() {
+        // Act
+        // La série est vieille de plusieurs années : la première occurrence est calculée directement
+        List<Date> dates = SessionSeriesExpander.occurrences(weekly(null),
+                at(LocalDateTime.of(2035, 7, 1, 0, 0)), at(LocalDateTime.of(2035, 7, 8, 0, 0)));
+
+        // Assert
+        assertEquals(1, dates.size());
+        LocalDateTime occurrence = LocalDateTime.ofInstant(dates.get(0).toInstant(), ZoneId.systemDefault());
+        assertEquals(18, occurrence.getHour());
+        assertEquals(java.time.DayOfWeek.MONDAY, occurrence.getDayOfWeek());
+    }
+}
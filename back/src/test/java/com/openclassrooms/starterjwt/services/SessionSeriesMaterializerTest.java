@@ -0,0 +1,96 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.SessionSeries;
+import com.openclassrooms.starterjwt.repository.SessionSeriesRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SessionSeriesMaterializerTest {
+
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+    @InjectMocks
+    private SessionSeriesMaterializer sessionSeriesMaterializer;
+
+    @Mock
+    private SessionSeriesRepository sessionSeriesRepository;
+
+    @Mock
+    private SessionService sessionService;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testMaterializeStoresOccurrencesUpToHorizon() {
+        // Arrange
+        // Une occurrence par jour : seules celles avant l'horizon sont enregistrées
+        SessionSeries series = SessionSeries.builder()
+                .name("Yoga quotidien")
+                .description("Tous les jours")
+                .capacity(10)
+                .startAt(new Date(System.currentTimeMillis() + 3600000))
+                .intervalDays(1)
+                .materializedUntil(new Date())
+                .build();
+        Date horizon = new Date(System.currentTimeMillis() + 14 * DAY);
+
+        // Act
+        sessionSeriesMaterializer.materialize(series, horizon);
+
+        // Assert
+        ArgumentCaptor<List<Session>> captor = ArgumentCaptor.forClass(List.class);
+        verify(sessionService).createAll(captor.capture());
+        List<Session> sessions = captor.getValue();
+        assertTrue(sessions.size() >= 13 && sessions.size() <= 14);
+        assertSame(series, sessions.get(0).getSeries());
+        assertEquals(10, sessions.get(0).getCapacity());
+        verify(sessionSeriesRepository).save(series);
+        assertEquals(horizon, series.getMaterializedUntil());
+    }
+
+    @Test
+    public void testMaterializeSeparatelySkipsPastOccurrences() {
+        // Arrange
+        // Le planificateur n'est pas passé depuis longtemps : les occurrences passées ne sont pas rattrapées
+        Date longAgo = new Date(System.currentTimeMillis() - 100 * DAY);
+        SessionSeries series = SessionSeries.builder()
+                .id(5L).startAt(longAgo).intervalDays(7).materializedUntil(longAgo).build();
+        when(sessionSeriesRepository.findById(5L)).thenReturn(Optional.of(series));
+
+        // Act
+        sessionSeriesMaterializer.materializeSeparately(5L, new Date(System.currentTimeMillis() + 14 * DAY));
+
+        // Assert
+        verify(sessionService).createAll(argThat(sessions -> sessions.size() == 2
+                && sessions.stream().allMatch(session -> session.getDate().after(new Date(System.currentTimeMillis() - DAY)))));
+        verify(sessionSeriesRepository).save(series);
+        assertTrue(series.getMaterializedUntil().after(new Date()));
+    }
+
+    @Test
+    public void testMaterializeSeparatelySkipsDeletedSeries() {
+        // Arrange
+        when(sessionSeriesRepository.findById(5L)).thenReturn(Optional.empty());
+
+        // Act
+        sessionSeriesMaterializer.materializeSeparately(5L, new Date());
+
+        // Assert
+        verifyNoInteractions(sessionService);
+        verify(sessionSeriesRepository, never()).save(any());
+    }
+}
@@ -0,0 +1,134 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.models.SessionSeries;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.SessionSeriesRepository;
+import com.openclassrooms.starterjwt.repository.projection.SessionView;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SessionSeriesServiceTest {
+
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+    @InjectMocks
+    private SessionSeriesService sessionSeriesService;
+
+    @Mock
+    private SessionSeriesRepository sessionSeriesRepository;
+
+    @Mock
+    private SessionRepository sessionRepository;
+
+    @Mock
+    private SessionService sessionService;
+
+    @Mock
+    private SessionSeriesMaterializer sessionSeriesMaterializer;
+
+    @Test
+    public void testCreateMaterializesWithinCallerTransaction() {
+        // Arrange
+        SessionSeries series = SessionSeries.builder()
+                .startAt(new Date(System.currentTimeMillis() + 3600000)).intervalDays(1).build();
+        when(sessionSeriesRepository.save(series)).thenReturn(series);
+
+        // Act
+        SessionSeries result = sessionSeriesService.create(series);
+
+        // Assert
+        // La série et ses premières occurrences sont créées ensemble
+        verify(sessionSeriesMaterializer).materialize(eq(series), argThat(horizon ->
+                horizon.getTime() - System.currentTimeMillis() > 13 * DAY));
+        verify(sessionSeriesMaterializer, never()).materializeSeparately(any(), any());
+        assertNotNull(result.getMaterializedUntil());
+    }
+
+    @Test
+    public void testCreateRejectsEndBeforeStart() {
+        // Arrange
+        Date start = new Date();
+        SessionSeries series = SessionSeries.builder().startAt(start).endAt(start).intervalDays(7).build();
+
+        // Act & Assert
+        assertThrows(BadRequestException.class, () -> sessionSeriesService.create(series));
+        verifyNoInteractions(sessionSeriesRepository, sessionSeriesMaterializer);
+    }
+
+    @Test
+    public void testMaterializeDueContinuesAfterFailingSeries() {
+        // Arrange
+        SessionSeries failing = SessionSeries.builder().id(1L).build();
+        SessionSeries other = SessionSeries.builder().id(2L).build();
+        when(sessionSeriesRepository.findDueBefore(any(Date.class))).thenReturn(List.of(failing, other));
+        doThrow(new RuntimeException("contrainte violée"))
+                .when(sessionSeriesMaterializer).materializeSeparately(eq(1L), any(Date.class));
+
+        // Act
+        sessionSeriesService.materializeDue();
+
+        // Assert
+        // Chaque série a sa propre transaction : l'échec de l'une ne bloque pas les autres
+        verify(sessionSeriesMaterializer).materializeSeparately(eq(2L), any(Date.class));
+    }
+
+    @Test
+    public void testFindTimetableMergesStoredAndVirtualOccurrences() {
+        // Arrange
+        Date from = new Date(10 * DAY);
+        Date to = new Date(31 * DAY);
+        SessionView stored = new SpelAwareProxyProjectionFactory().createProjection(SessionView.class,
+                Map.of("id", 1L, "name", "Séance ponctuelle", "date", new Date(18 * DAY + 1)));
+        SessionSeries series = SessionSeries.builder()
+                .id(5L).name("Yoga hebdomadaire")
+                .startAt(new Date(3 * DAY)).intervalDays(7).materializedUntil(new Date(15 * DAY)).build();
+        when(sessionRepository.findViewsBetween(from, 0L, to, Pageable.unpaged())).thenReturn(List.of(stored));
+        when(sessionSeriesRepository.findVirtualBetween(from, to)).thenReturn(List.of(series));
+
+        // Act
+        List<SessionView> timetable = sessionSeriesService.findTimetable(from, to);
+
+        // Assert
+        // Les occurrences antérieures à materializedUntil sont déjà en base : seules les suivantes sont virtuelles
+        assertEquals(3, timetable.size());
+        assertEquals(new Date(17 * DAY), timetable.get(0).getDate());
+        assertNull(timetable.get(0).getId());
+        assertEquals(5L, timetable.get(0).getSeriesId());
+        assertEquals(1L, timetable.get(1).getId());
+        assertEquals(new Date(24 * DAY), timetable.get(2).getDate());
+    }
+
+    @Test
+    public void testFindTimetableRejectsTooLongRange() {
+        // Act & Assert
+        assertThrows(BadRequestException.class,
+                () -> sessionSeriesService.findTimetable(new Date(0), new Date(365 * DAY)));
+        verifyNoInteractions(sessionRepository, sessionSeriesRepository);
+    }
+
+    @Test
+    public void testDeleteDetachesStoredOccurrences() {
+        // Act
+        sessionSeriesService.delete(5L);
+
+        // Assert
+        verify(sessionService).detachFromSeries(5L);
+        verify(sessionSeriesRepository).deleteById(5L);
+    }
+}
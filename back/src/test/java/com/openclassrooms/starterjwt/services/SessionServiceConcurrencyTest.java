@@ -0,0 +1,137 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.repository.WaitlistRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {"spring.profiles.active=test"})
+public class SessionServiceConcurrencyTest {
+
+    private static final int CAPACITY = 5;
+    private static final int CONTENDERS = 20;
+
+    @Autowired
+    private SessionService sessionService;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private WaitlistRepository waitlistRepository;
+
+    private Session session;
+    private List<User> users;
+
+    @BeforeEach
+    public void setup() {
+        session = new Session();
+        session.setName("Session très demandée");
+        session.setDescription("Session à capacité limitée");
+        session.setDate(new Date());
+        session.setCapacity(CAPACITY);
+        session.setUsers(new HashSet<>());
+        session = sessionRepository.save(session);
+
+        users = new ArrayList<>();
+        for (int i = 0; i < CONTENDERS; i++) {
+            User user = new User();
+            user.setEmail("contender" + i + "@example.com");
+            user.setFirstName("Contender");
+            user.setLastName("User" + i);
+            user.setPassword("password");
+            users.add(userRepository.save(user));
+        }
+    }
+
+    @AfterEach
+    public void cleanup() {
+        sessionService.delete(session.getId());
+        userRepository.deleteAll(users);
+    }
+
+    @Test
+    public void testConcurrentJoinsNeverExceedCapacity() throws Exception {
+        // Arrange
+        ExecutorService executor = Executors.newFixedThreadPool(CONTENDERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (User user : users) {
+            Callable<Boolean> join = () -> {
+                start.await();
+                return sessionService.participate(session.getId(), user.getId()) == ParticipationStatus.PARTICIPATING;
+            };
+            results.add(executor.submit(join));
+        }
+
+        // Act
+        start.countDown();
+        int joined = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get()) {
+                joined++;
+            }
+        }
+        executor.shutdown();
+
+        // Assert
+        assertEquals(CAPACITY, joined);
+        assertEquals(CAPACITY, sessionService.getViewById(session.getId()).getSeatsTaken());
+        assertEquals(CAPACITY, sessionService.findParticipantIds(List.of(session.getId())).get(session.getId()).size());
+        assertEquals(CONTENDERS - CAPACITY, waitlistRepository.count());
+    }
+
+    @Test
+    public void testConcurrentCancellationsPromoteDistinctWaitlistedUsers() throws Exception {
+        // Arrange
+        for (User user : users) {
+            sessionService.participate(session.getId(), user.getId());
+        }
+        List<Long> participants = sessionService.findParticipantIds(List.of(session.getId())).get(session.getId());
+        ExecutorService executor = Executors.newFixedThreadPool(CAPACITY);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        for (Long userId : participants) {
+            results.add(executor.submit(() -> {
+                start.await();
+                sessionService.noLongerParticipate(session.getId(), userId);
+                return null;
+            }));
+        }
+
+        // Act
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get();
+        }
+        executor.shutdown();
+
+        // Assert
+        List<Long> promoted = sessionService.findParticipantIds(List.of(session.getId())).get(session.getId());
+        assertEquals(CAPACITY, promoted.size());
+        assertTrue(promoted.stream().noneMatch(participants::contains));
+        assertEquals(CAPACITY, sessionService.getViewById(session.getId()).getSeatsTaken());
+        assertEquals(CONTENDERS - 2 * CAPACITY, waitlistRepository.count());
+    }
+}
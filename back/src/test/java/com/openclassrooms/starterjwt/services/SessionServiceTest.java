@@ -1,21 +1,36 @@
 package com.openclassrooms.starterjwt.services;
 
 import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.exception.ConflictException;
 import com.openclassrooms.starterjwt.exception.NotFoundException;
 import com.openclassrooms.starterjwt.models.Session;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.models.WaitlistEntry;
+import com.openclassrooms.starterjwt.repository.SessionDeletionRepository;
+import com.openclassrooms.starterjwt.repository.SessionPatch;
 import com.openclassrooms.starterjwt.repository.SessionRepository;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.repository.projection.SessionParticipantView;
+import com.openclassrooms.starterjwt.repository.projection.SessionView;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-
-import java.util.ArrayList;
-import java.util.Arrays;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+
+import java.util.HashSet;
+import java.time.LocalDateTime;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.mockito.Mockito.*;
@@ -33,9 +48,22 @@ public class SessionServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private WaitlistService waitlistService;
+
+    @Mock
+    private SessionDeletionRepository sessionDeletionRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private SessionSearchIndex sessionSearchIndex;
+
     private Session testSession;
     private User testUser;
     private User testUser2;
+    private SessionView testView;
 
     @BeforeEach
     public void setup() {
@@ -44,7 +72,11 @@ public class SessionServiceTest {
         testSession.setId(1L);
         testSession.setName("Yoga matinal");
         testSession.setDescription("Session de yoga pour bien commencer la journée");
-        testSession.setUsers(new ArrayList<>());
+        testSession.setUsers(new HashSet<>());
+
+        // Projection correspondant à la session de test
+        testView = new SpelAwareProxyProjectionFactory().createProjection(SessionView.class,
+                Map.of("id", 1L, "name", "Yoga matinal"));
 
         // Préparation d'un utilisateur de test
         testUser = new User();
@@ -80,6 +112,52 @@ public class SessionServiceTest {
         assertEquals("Session de yoga pour bien commencer la journée", result.getDescription());
 
         verify(sessionRepository).save(testSession);
+        verify(eventPublisher).publishEvent(new SessionChangeEvent(SessionChangeEvent.Type.CREATED, 1L, null));
+    }
+
+    @Test
+    public void testCreateAllInsertsBatchAndPublishesOneEvent() {
+        // Arrange
+        Session other = new Session();
+        other.setId(2L);
+        other.setUsers(new HashSet<>(List.of(testUser)));
+
+        // Act
+        List<Session> result = sessionService.createAll(List.of(testSession, other));
+
+        // Assert
+        assertEquals(2, result.size());
+        assertEquals(1, other.getSeatsTaken());
+        verify(sessionRepository).insertAll(List.of(testSession, other));
+        verify(sessionRepository, never()).save(any(Session.class));
+        verify(sessionRepository, never()).saveAll(anyList());
+        verify(eventPublisher).publishEvent(new SessionsImportedEvent(List.of(1L, 2L)));
+    }
+
+    @Test
+    public void testCreateSessionCountsSeatsTaken() {
+        // Arrange
+        testSession.getUsers().add(testUser);
+        testSession.getUsers().add(testUser2);
+        when(sessionRepository.save(testSession)).thenReturn(testSession);
+
+        // Act
+        Session result = sessionService.create(testSession);
+
+        // Assert
+        assertEquals(2, result.getSeatsTaken());
+    }
+
+    @Test
+    public void testCreateSessionRejectsMoreParticipantsThanCapacity() {
+        // Arrange
+        testSession.setCapacity(1);
+        testSession.getUsers().add(testUser);
+        testSession.getUsers().add(testUser2);
+
+        // Act & Assert
+        assertThrows(BadRequestException.class, () -> sessionService.create(testSession));
+        verify(sessionRepository, never()).save(any(Session.class));
     }
 
     @Test
@@ -92,32 +170,157 @@ public class SessionServiceTest {
         sessionService.delete(sessionId);
 
         // Assert
+        verify(waitlistService).clearSession(sessionId);
         verify(sessionRepository).deleteById(sessionId);
+        // Une pierre tombale est enregistrée pour la synchronisation différentielle
+        verify(sessionDeletionRepository).save(argThat(deletion ->
+                deletion.getSessionId().equals(sessionId) && deletion.getDeletedAt() != null));
+        verify(eventPublisher).publishEvent(new SessionChangeEvent(SessionChangeEvent.Type.DELETED, sessionId, null));
+    }
+
+    @Test
+    public void testDetachFromSeriesPublishesUpdates() {
+        // Arrange
+        when(sessionRepository.findIdsBySeriesId(5L)).thenReturn(List.of(1L, 2L));
+
+        // Act
+        sessionService.detachFromSeries(5L);
+
+        // Assert
+        // Les séances détachées doivent apparaître dans /changes et dans le flux
+        verify(sessionRepository).detachFromSeries(eq(5L), any(LocalDateTime.class));
+        verify(eventPublisher).publishEvent(new SessionChangeEvent(SessionChangeEvent.Type.UPDATED, 1L, null));
+        verify(eventPublisher).publishEvent(new SessionChangeEvent(SessionChangeEvent.Type.UPDATED, 2L, null));
     }
 
     @Test
-    public void testFindAllSessions() {
+    public void testFindChangesSince() {
         // Arrange
-        Session session2 = new Session();
-        session2.setId(2L);
-        session2.setName("Yoga avancé");
-        session2.setDescription("Session de yoga avancé");
-        List<Session> sessions = Arrays.asList(testSession, session2);
+        LocalDateTime since = LocalDateTime.of(2026, 1, 1, 10, 0);
+        when(sessionRepository.findViewsUpdatedSince(since)).thenReturn(List.of(testView));
+        when(sessionDeletionRepository.findSessionIdsDeletedSince(since)).thenReturn(List.of(7L));
 
-        when(sessionRepository.findAll()).thenReturn(sessions);
+        // Act & Assert
+        assertEquals(List.of(testView), sessionService.findViewsUpdatedSince(since));
+        assertEquals(List.of(7L), sessionService.findDeletedSince(since));
+    }
+
+    @Test
+    public void testFindAllViews() {
+        // Arrange
+        when(sessionRepository.findAllViews()).thenReturn(List.of(testView));
 
         // Act
-        List<Session> result = sessionService.findAll();
+        List<SessionView> result = sessionService.findAllViews();
 
         // Assert
-        assertNotNull(result);
-        assertEquals(2, result.size());
-        assertEquals(1L, result.get(0).getId());
-        assertEquals("Yoga matinal", result.get(0).getName());
-        assertEquals(2L, result.get(1).getId());
-        assertEquals("Yoga avancé", result.get(1).getName());
+        assertEquals(List.of(testView), result);
+        verify(sessionRepository, never()).findAll();
+    }
 
-        verify(sessionRepository).findAll();
+    @Test
+    public void testFindAllAfterWithoutCursorReturnsFirstPage() {
+        // Arrange
+        when(sessionRepository.findViews(PageRequest.of(0, 10))).thenReturn(List.of(testView));
+
+        // Act
+        List<SessionView> result = sessionService.findAllAfter(null, 10);
+
+        // Assert
+        assertEquals(1, result.size());
+        verify(sessionRepository, never()).findViewsAfter(any(Date.class), anyLong(), any(Pageable.class));
+    }
+
+    @Test
+    public void testFindAllAfterWithCursorSeeksPastPosition() {
+        // Arrange
+        Date date = new Date();
+        when(sessionRepository.findViewsAfter(date, 1L, PageRequest.of(0, 20))).thenReturn(List.of());
+
+        // Act
+        List<SessionView> result = sessionService.findAllAfter(new SessionCursor(date, 1L), null);
+
+        // Assert
+        assertTrue(result.isEmpty());
+        verify(sessionRepository).findViewsAfter(date, 1L, PageRequest.of(0, 20));
+    }
+
+    @Test
+    public void testFindFilteredByTeacherUsesTeacherQuery() {
+        // Arrange
+        Date from = new Date(1000L);
+        Date to = new Date(5000L);
+        SessionFilter filter = new SessionFilter(from, to, 3L, null);
+        when(sessionRepository.findViewsByTeacherBetween(eq(3L), eq(from), eq(0L), eq(to), any(Pageable.class)))
+                .thenReturn(List.of(testView));
+
+        // Act
+        List<SessionView> result = sessionService.findFiltered(filter, null, 10);
+
+        // Assert
+        assertEquals(List.of(testView), result);
+        verify(sessionRepository, never()).findViewsBetween(any(Date.class), anyLong(), any(Date.class), any(Pageable.class));
+    }
+
+    @Test
+    public void testFindFilteredByParticipantResumesAfterCursor() {
+        // Arrange
+        SessionFilter filter = new SessionFilter(null, null, null, 2L);
+        SessionCursor cursor = new SessionCursor(new Date(2000L), 7L);
+        when(sessionRepository.findViewsByParticipantBetween(eq(2L), isNull(), eq(cursor.getDate()), eq(7L),
+                eq(SessionFilter.END), any(Pageable.class))).thenReturn(List.of(testView));
+
+        // Act
+        List<SessionView> result = sessionService.findFiltered(filter, cursor, 10);
+
+        // Assert
+        assertEquals(List.of(testView), result);
+    }
+
+    @Test
+    public void testSearchKeepsIndexRanking() {
+        // Arrange
+        SessionView otherView = new SpelAwareProxyProjectionFactory().createProjection(SessionView.class, Map.of("id", 2L));
+        when(sessionSearchIndex.search("yoga", 20)).thenReturn(List.of(2L, 1L, 3L));
+        when(sessionRepository.findViewsByIdIn(List.of(2L, 1L, 3L))).thenReturn(List.of(testView, otherView));
+
+        // Act
+        List<SessionView> result = sessionService.search("yoga", null);
+
+        // Assert
+        // L'ordre du classement est conservé, la session 3 supprimée entre-temps est ignorée
+        assertEquals(List.of(otherView, testView), result);
+    }
+
+    @Test
+    public void testSearchRejectsBlankQuery() {
+        assertThrows(BadRequestException.class, () -> sessionService.search(" ", null));
+        verify(sessionSearchIndex, never()).search(anyString(), anyInt());
+    }
+
+    @Test
+    public void testFindPage() {
+        // Arrange
+        Page<SessionView> page = new PageImpl<>(List.of(testView));
+        when(sessionRepository.findViewPage(PageRequest.of(2, 5))).thenReturn(page);
+
+        // Act
+        Page<SessionView> result = sessionService.findPage(2, 5);
+
+        // Assert
+        assertEquals(page, result);
+    }
+
+    @Test
+    public void testFindPageRejectsNegativePage() {
+        assertThrows(BadRequestException.class, () -> sessionService.findPage(-1, null));
+    }
+
+    @Test
+    public void testPageSizeIsClampedToMaximum() {
+        assertEquals(20, sessionService.pageSize(null));
+        assertEquals(100, sessionService.pageSize(1000));
+        assertThrows(BadRequestException.class, () -> sessionService.pageSize(0));
     }
 
     @Test
@@ -136,6 +339,43 @@ public class SessionServiceTest {
         verify(sessionRepository).findById(1L);
     }
 
+    @Test
+    public void testGetViewById() {
+        // Arrange
+        when(sessionRepository.findViewById(1L)).thenReturn(Optional.of(testView));
+
+        // Act
+        SessionView result = sessionService.getViewById(1L);
+
+        // Assert
+        assertEquals(testView, result);
+        verify(sessionRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    public void testFindParticipantIdsGroupsBySession() {
+        // Arrange
+        SpelAwareProxyProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+        List<SessionParticipantView> rows = List.of(
+                projectionFactory.createProjection(SessionParticipantView.class, Map.of("sessionId", 1L, "userId", 1L)),
+                projectionFactory.createProjection(SessionParticipantView.class, Map.of("sessionId", 1L, "userId", 2L)),
+                projectionFactory.createProjection(SessionParticipantView.class, Map.of("sessionId", 2L, "userId", 1L)));
+        when(sessionRepository.findParticipantsBySessionIdIn(List.of(1L, 2L))).thenReturn(rows);
+
+        // Act
+        Map<Long, List<Long>> result = sessionService.findParticipantIds(List.of(1L, 2L));
+
+        // Assert
+        assertEquals(List.of(1L, 2L), result.get(1L));
+        assertEquals(List.of(1L), result.get(2L));
+    }
+
+    @Test
+    public void testFindParticipantIdsWithoutSessionsSkipsQuery() {
+        assertTrue(sessionService.findParticipantIds(List.of()).isEmpty());
+        verify(sessionRepository, never()).findParticipantsBySessionIdIn(anyCollection());
+    }
+
     @Test
     public void testGetSessionByIdReturnsNullWhenNotFound() {
         // Arrange
@@ -156,123 +396,370 @@ public class SessionServiceTest {
         testSession.setName("Yoga du soir");
         testSession.setDescription("Session de yoga pour bien terminer la journée");
 
-        when(sessionRepository.save(testSession)).thenReturn(testSession);
+        when(sessionRepository.replace(1L, testSession, 3L)).thenReturn(1);
+        when(sessionRepository.findViewById(1L)).thenReturn(Optional.of(testView));
 
         // Act
-        Session result = sessionService.update(1L, testSession);
+        SessionView result = sessionService.update(1L, testSession, 3L);
 
         // Assert
-        assertNotNull(result);
-        assertEquals(1L, result.getId());
-        assertEquals("Yoga du soir", result.getName());
-        assertEquals("Session de yoga pour bien terminer la journée", result.getDescription());
+        // Une seule requête UPDATE, sans fusion ni relecture de l'entité
+        assertSame(testView, result);
+        verify(sessionRepository, never()).save(any(Session.class));
+        verify(sessionRepository, never()).findById(anyLong());
+        verify(eventPublisher).publishEvent(new SessionChangeEvent(SessionChangeEvent.Type.UPDATED, 1L, null));
+    }
 
-        verify(sessionRepository).save(testSession);
+    @Test
+    public void testUpdateSessionWithStaleVersionThrowsConflict() {
+        // Arrange
+        when(sessionRepository.replace(1L, testSession, 3L)).thenReturn(0);
+        when(sessionRepository.findVersionById(1L)).thenReturn(Optional.of(4L));
+
+        // Act & Assert
+        assertThrows(ConflictException.class, () -> sessionService.update(1L, testSession, 3L));
+        verify(sessionRepository, never()).addParticipant(anyLong(), anyLong());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    public void testUpdateUnknownSessionThrowsNotFound() {
+        // Arrange
+        when(sessionRepository.replace(1L, testSession, null)).thenReturn(0);
+        when(sessionRepository.findVersionById(1L)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(NotFoundException.class, () -> sessionService.update(1L, testSession, null));
+    }
+
+    @Test
+    public void testPatchUpdatesFieldsWithoutTouchingParticipants() {
+        // Arrange
+        SessionPatch patch = SessionPatch.builder().name("Yoga du soir").build();
+        when(sessionRepository.patch(1L, patch)).thenReturn(1);
+        when(sessionRepository.findViewById(1L)).thenReturn(Optional.of(testView));
+
+        // Act
+        SessionView result = sessionService.patch(1L, patch);
+
+        // Assert
+        assertSame(testView, result);
+        verify(sessionRepository, never()).findParticipantsBySessionIdIn(any());
+        verify(sessionRepository, never()).addParticipant(anyLong(), anyLong());
+        verify(sessionRepository, never()).existsById(anyLong());
+        verify(eventPublisher).publishEvent(new SessionChangeEvent(SessionChangeEvent.Type.UPDATED, 1L, null));
+    }
+
+    @Test
+    public void testPatchReplacesParticipantsWhenGiven() {
+        // Arrange
+        // L'utilisateur 2 reste, le 3 est retiré et le 4 ajouté
+        SpelAwareProxyProjectionFactory factory = new SpelAwareProxyProjectionFactory();
+        SessionPatch patch = SessionPatch.builder().userIds(new java.util.LinkedHashSet<>(List.of(2L, 4L))).build();
+        when(sessionRepository.findParticipantsBySessionIdIn(List.of(1L))).thenReturn(List.of(
+                factory.createProjection(SessionParticipantView.class, Map.of("sessionId", 1L, "userId", 2L)),
+                factory.createProjection(SessionParticipantView.class, Map.of("sessionId", 1L, "userId", 3L))));
+        when(sessionRepository.patch(1L, patch)).thenReturn(1);
+
+        // Act
+        sessionService.patch(1L, patch);
+
+        // Assert
+        verify(sessionRepository).removeParticipant(1L, 3L);
+        verify(sessionRepository).addParticipant(1L, 4L);
+        verify(waitlistService).remove(1L, 4L);
+        verify(sessionRepository, never()).addParticipant(1L, 2L);
+        assertEquals(2, patch.getSeatsTaken());
+    }
+
+    @Test
+    public void testPatchCapacityPromotesWaitlistedUsers() {
+        // Arrange
+        SessionPatch patch = SessionPatch.builder().capacity(20).build();
+        WaitlistEntry head = new WaitlistEntry().setId(7L).setSessionId(1L).setUserId(2L);
+        when(sessionRepository.patch(1L, patch)).thenReturn(1);
+        when(waitlistService.lockHead(1L)).thenReturn(Optional.of(head), Optional.empty());
+        when(sessionRepository.reserveSeat(eq(1L), any(LocalDateTime.class))).thenReturn(1);
+
+        // Act
+        sessionService.patch(1L, patch);
+
+        // Assert
+        verify(sessionRepository).addParticipant(1L, 2L);
+        verify(waitlistService).delete(head);
+        verify(eventPublisher).publishEvent(new SessionChangeEvent(SessionChangeEvent.Type.PARTICIPATED, 1L, 2L));
+    }
+
+    @Test
+    public void testPatchRejectsCapacityBelowSeatsTaken() {
+        // Arrange
+        SessionPatch patch = SessionPatch.builder().capacity(1).version(3L).build();
+        when(sessionRepository.patch(1L, patch)).thenReturn(0);
+        when(sessionRepository.findVersionById(1L)).thenReturn(Optional.of(3L));
+
+        // Act & Assert
+        assertThrows(BadRequestException.class, () -> sessionService.patch(1L, patch));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    public void testPatchWithStaleVersionThrowsConflict() {
+        // Arrange
+        SessionPatch patch = SessionPatch.builder().name("Yoga du soir").version(3L).build();
+        when(sessionRepository.patch(1L, patch)).thenReturn(0);
+        when(sessionRepository.findVersionById(1L)).thenReturn(Optional.of(4L));
+
+        // Act & Assert
+        assertThrows(ConflictException.class, () -> sessionService.patch(1L, patch));
+    }
+
+    @Test
+    public void testEmptyPatchIsRejectedWithoutUpdate() {
+        // Act & Assert
+        // Un PATCH vide ne doit ni incrémenter la version ni publier d'événement
+        assertThrows(BadRequestException.class, () -> sessionService.patch(1L, SessionPatch.builder().version(3L).build()));
+        verify(sessionRepository, never()).patch(anyLong(), any(SessionPatch.class));
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    public void testPatchUnknownSessionThrowsNotFound() {
+        // Arrange
+        SessionPatch patch = SessionPatch.builder().name("Yoga du soir").build();
+        when(sessionRepository.patch(1L, patch)).thenReturn(0);
+        when(sessionRepository.findVersionById(1L)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(NotFoundException.class, () -> sessionService.patch(1L, patch));
     }
 
     @Test
     public void testParticipateSuccess() {
         // Arrange
-        when(sessionRepository.findById(1L)).thenReturn(Optional.of(testSession));
-        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
-        when(sessionRepository.save(testSession)).thenReturn(testSession);
+        when(sessionRepository.existsById(1L)).thenReturn(true);
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(sessionRepository.addParticipant(1L, 1L)).thenReturn(1);
+        when(sessionRepository.reserveSeat(eq(1L), any(LocalDateTime.class))).thenReturn(1);
 
         // Act
-        sessionService.participate(1L, 1L);
+        ParticipationStatus status = sessionService.participate(1L, 1L);
 
         // Assert
-        verify(sessionRepository).findById(1L);
-        verify(userRepository).findById(1L);
-        verify(sessionRepository).save(testSession);
-        
-        // Vérification que l'utilisateur a bien été ajouté à la session
-        assertTrue(testSession.getUsers().contains(testUser));
+        assertEquals(ParticipationStatus.PARTICIPATING, status);
+        verify(sessionRepository).addParticipant(1L, 1L);
+        verify(sessionRepository).reserveSeat(eq(1L), any(LocalDateTime.class));
+        verify(waitlistService, never()).enqueue(anyLong(), anyLong());
+        // Une éventuelle inscription en liste d'attente est retirée
+        verify(waitlistService).remove(1L, 1L);
+        // Ni la session ni l'utilisateur ne sont chargés
+        verify(sessionRepository, never()).findById(anyLong());
+        verify(userRepository, never()).findById(anyLong());
+        verify(sessionRepository, never()).save(any(Session.class));
+        verify(eventPublisher).publishEvent(new SessionChangeEvent(SessionChangeEvent.Type.PARTICIPATED, 1L, 1L));
     }
 
     @Test
     public void testParticipateThrowsNotFoundExceptionWhenSessionNotFound() {
         // Arrange
-        when(sessionRepository.findById(999L)).thenReturn(Optional.empty());
+        when(sessionRepository.existsById(999L)).thenReturn(false);
 
         // Act & Assert
         assertThrows(NotFoundException.class, () -> sessionService.participate(999L, 1L));
-        
-        verify(sessionRepository).findById(999L);
-        verify(userRepository).findById(1L);
-        verify(sessionRepository, never()).save(any(Session.class));
+
+        verify(sessionRepository).existsById(999L);
+        verify(sessionRepository, never()).addParticipant(anyLong(), anyLong());
     }
 
     @Test
     public void testParticipateThrowsNotFoundExceptionWhenUserNotFound() {
         // Arrange
-        when(sessionRepository.findById(1L)).thenReturn(Optional.of(testSession));
-        when(userRepository.findById(999L)).thenReturn(Optional.empty());
+        when(sessionRepository.existsById(1L)).thenReturn(true);
+        when(userRepository.existsById(999L)).thenReturn(false);
 
         // Act & Assert
         assertThrows(NotFoundException.class, () -> sessionService.participate(1L, 999L));
-        
-        verify(sessionRepository).findById(1L);
-        verify(userRepository).findById(999L);
-        verify(sessionRepository, never()).save(any(Session.class));
+
+        verify(userRepository).existsById(999L);
+        verify(sessionRepository, never()).addParticipant(anyLong(), anyLong());
     }
 
     @Test
     public void testParticipateThrowsBadRequestExceptionWhenUserAlreadyParticipates() {
         // Arrange
-        testSession.getUsers().add(testUser);
-        
-        when(sessionRepository.findById(1L)).thenReturn(Optional.of(testSession));
-        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(sessionRepository.existsById(1L)).thenReturn(true);
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(sessionRepository.addParticipant(1L, 1L)).thenThrow(new DataIntegrityViolationException("duplicate"));
 
         // Act & Assert
         assertThrows(BadRequestException.class, () -> sessionService.participate(1L, 1L));
-        
-        verify(sessionRepository).findById(1L);
-        verify(userRepository).findById(1L);
-        verify(sessionRepository, never()).save(any(Session.class));
+        verify(sessionRepository, never()).reserveSeat(anyLong(), any(LocalDateTime.class));
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    public void testParticipateWaitlistsUserWhenNoSeatLeft() {
+        // Arrange
+        when(sessionRepository.existsById(1L)).thenReturn(true);
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(sessionRepository.addParticipant(1L, 1L)).thenReturn(1);
+        when(sessionRepository.reserveSeat(eq(1L), any(LocalDateTime.class))).thenReturn(0);
+
+        // Act
+        ParticipationStatus status = sessionService.participate(1L, 1L);
+
+        // Assert
+        assertEquals(ParticipationStatus.WAITLISTED, status);
+        verify(sessionRepository).removeParticipant(1L, 1L);
+        verify(waitlistService).enqueue(1L, 1L);
+        verify(eventPublisher).publishEvent(new SessionChangeEvent(SessionChangeEvent.Type.WAITLISTED, 1L, 1L));
     }
 
     @Test
     public void testNoLongerParticipateSuccess() {
         // Arrange
-        testSession.getUsers().add(testUser);
-        
-        when(sessionRepository.findById(1L)).thenReturn(Optional.of(testSession));
-        when(sessionRepository.save(testSession)).thenReturn(testSession);
+        when(sessionRepository.existsById(1L)).thenReturn(true);
+        when(sessionRepository.removeParticipant(1L, 1L)).thenReturn(1);
 
         // Act
         sessionService.noLongerParticipate(1L, 1L);
 
         // Assert
-        verify(sessionRepository).findById(1L);
-        verify(sessionRepository).save(testSession);
-        
-        // Vérification que l'utilisateur a bien été retiré de la session
-        assertFalse(testSession.getUsers().contains(testUser));
+        verify(sessionRepository).removeParticipant(1L, 1L);
+        verify(sessionRepository).releaseSeat(eq(1L), any(LocalDateTime.class));
+        verify(waitlistService).lockHead(1L);
+        verify(sessionRepository, never()).reserveSeat(anyLong(), any(LocalDateTime.class));
+        verify(sessionRepository, never()).findById(anyLong());
+        verify(sessionRepository, never()).save(any(Session.class));
+    }
+
+    @Test
+    public void testNoLongerParticipatePromotesHeadOfWaitlist() {
+        // Arrange
+        when(sessionRepository.existsById(1L)).thenReturn(true);
+        when(sessionRepository.removeParticipant(1L, 1L)).thenReturn(1);
+        WaitlistEntry head = new WaitlistEntry().setId(7L).setSessionId(1L).setUserId(2L);
+        when(waitlistService.lockHead(1L)).thenReturn(Optional.of(head), Optional.empty());
+        when(sessionRepository.reserveSeat(eq(1L), any(LocalDateTime.class))).thenReturn(1);
+
+        // Act
+        sessionService.noLongerParticipate(1L, 1L);
+
+        // Assert
+        // La place libérée est aussitôt attribuée au premier de la liste d'attente
+        verify(sessionRepository).releaseSeat(eq(1L), any(LocalDateTime.class));
+        verify(sessionRepository).addParticipant(1L, 2L);
+        verify(waitlistService).delete(head);
+        verify(eventPublisher).publishEvent(new SessionChangeEvent(SessionChangeEvent.Type.LEFT, 1L, 1L));
+        verify(eventPublisher).publishEvent(new SessionChangeEvent(SessionChangeEvent.Type.PARTICIPATED, 1L, 2L));
+    }
+
+    @Test
+    public void testPromotionDropsHeadAlreadyParticipating() {
+        // Arrange
+        // Le premier de la liste participe déjà : son entrée est supprimée et le suivant est promu
+        WaitlistEntry stale = new WaitlistEntry().setId(7L).setSessionId(1L).setUserId(2L);
+        WaitlistEntry next = new WaitlistEntry().setId(8L).setSessionId(1L).setUserId(3L);
+        when(sessionRepository.existsById(1L)).thenReturn(true);
+        when(sessionRepository.removeParticipant(1L, 1L)).thenReturn(1);
+        when(waitlistService.lockHead(1L)).thenReturn(Optional.of(stale), Optional.of(next), Optional.empty());
+        when(sessionRepository.countParticipant(1L, 2L)).thenReturn(1L);
+        when(sessionRepository.reserveSeat(eq(1L), any(LocalDateTime.class))).thenReturn(1);
+
+        // Act
+        sessionService.noLongerParticipate(1L, 1L);
+
+        // Assert
+        verify(sessionRepository, never()).addParticipant(1L, 2L);
+        verify(sessionRepository).addParticipant(1L, 3L);
+        verify(sessionRepository, times(1)).reserveSeat(eq(1L), any(LocalDateTime.class));
+        verify(waitlistService).delete(stale);
+        verify(waitlistService).delete(next);
+    }
+
+    @Test
+    public void testPromotionStopsWhenNoSeatLeft() {
+        // Arrange
+        WaitlistEntry head = new WaitlistEntry().setId(7L).setSessionId(1L).setUserId(2L);
+        when(sessionRepository.existsById(1L)).thenReturn(true);
+        when(sessionRepository.removeParticipant(1L, 1L)).thenReturn(1);
+        when(waitlistService.lockHead(1L)).thenReturn(Optional.of(head));
+        when(sessionRepository.reserveSeat(eq(1L), any(LocalDateTime.class))).thenReturn(0);
+
+        // Act
+        sessionService.noLongerParticipate(1L, 1L);
+
+        // Assert
+        // L'utilisateur garde sa place en tête de la liste d'attente
+        verify(sessionRepository, never()).addParticipant(anyLong(), anyLong());
+        verify(waitlistService, never()).delete(any());
+        verify(eventPublisher, never()).publishEvent(new SessionChangeEvent(SessionChangeEvent.Type.PARTICIPATED, 1L, 2L));
+    }
+
+    @Test
+    public void testNoLongerParticipateRemovesUserFromWaitlist() {
+        // Arrange
+        when(sessionRepository.existsById(1L)).thenReturn(true);
+        when(sessionRepository.removeParticipant(1L, 1L)).thenReturn(0);
+        when(waitlistService.remove(1L, 1L)).thenReturn(true);
+
+        // Act
+        sessionService.noLongerParticipate(1L, 1L);
+
+        // Assert
+        verify(sessionRepository, never()).releaseSeat(anyLong(), any(LocalDateTime.class));
+        verify(waitlistService, never()).lockHead(anyLong());
     }
 
     @Test
     public void testNoLongerParticipateThrowsNotFoundExceptionWhenSessionNotFound() {
         // Arrange
-        when(sessionRepository.findById(999L)).thenReturn(Optional.empty());
+        when(sessionRepository.existsById(999L)).thenReturn(false);
 
         // Act & Assert
         assertThrows(NotFoundException.class, () -> sessionService.noLongerParticipate(999L, 1L));
-        
-        verify(sessionRepository).findById(999L);
-        verify(sessionRepository, never()).save(any(Session.class));
+
+        verify(sessionRepository, never()).removeParticipant(anyLong(), anyLong());
     }
 
     @Test
     public void testNoLongerParticipateThrowsBadRequestExceptionWhenUserDoesNotParticipate() {
         // Arrange
         // L'utilisateur n'est pas dans la liste des participants
-        when(sessionRepository.findById(1L)).thenReturn(Optional.of(testSession));
+        when(sessionRepository.existsById(1L)).thenReturn(true);
+        when(sessionRepository.removeParticipant(1L, 1L)).thenReturn(0);
 
         // Act & Assert
         assertThrows(BadRequestException.class, () -> sessionService.noLongerParticipate(1L, 1L));
-        
-        verify(sessionRepository).findById(1L);
-        verify(sessionRepository, never()).save(any(Session.class));
+        verify(sessionRepository, never()).releaseSeat(anyLong(), any(LocalDateTime.class));
+    }
+
+    @Test
+    public void testChangesWatermarkLagsBehindInFlightTransactions() {
+        // Act
+        LocalDateTime before = LocalDateTime.now();
+        LocalDateTime watermark = sessionService.getChangesWatermark();
+
+        // Assert
+        // Une transaction horodatée juste avant l'appel mais validée après reste au-delà du watermark
+        assertTrue(watermark.isBefore(before.minusSeconds(59)));
+        assertEquals(0, watermark.getNano());
+    }
+
+    @Test
+    public void testFullResyncRequiredOnlyBeyondRetention() {
+        // Assert
+        assertTrue(sessionService.requiresFullResync(LocalDateTime.now().minusDays(31)));
+        assertFalse(sessionService.requiresFullResync(LocalDateTime.now().minusDays(29)));
+    }
+
+    @Test
+    public void testPurgeDeletionsRemovesTombstonesOlderThanRetention() {
+        // Act
+        sessionService.purgeDeletions();
+
+        // Assert
+        verify(sessionDeletionRepository).deleteDeletedBefore(argThat(before ->
+                before.isBefore(LocalDateTime.now().minusDays(30).plusMinutes(1))
+                        && before.isAfter(LocalDateTime.now().minusDays(30).minusMinutes(1))));
     }
 }
@@ -11,6 +11,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.mockito.Mockito.*;
@@ -106,4 +107,95 @@ public class TeacherServiceTest {
         assertNull(result);
         verify(teacherRepository).findById(999L);
     }
+
+    @Test
+    public void testFindAllIsServedFromCatalogue() {
+        // Arrange
+        when(teacherRepository.findAll()).thenReturn(Arrays.asList(teacher1, teacher2));
+
+        // Act
+        teacherService.findAll();
+        List<Teacher> result = teacherService.findAll();
+        Teacher byId = teacherService.findById(2L);
+
+        // Assert
+        // Le catalogue alimente aussi les recherches par identifiant
+        assertEquals(2, result.size());
+        assertSame(teacher2, byId);
+        verify(teacherRepository, times(1)).findAll();
+        verify(teacherRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    public void testFindByIdReadsThroughOnce() {
+        // Arrange
+        when(teacherRepository.findById(1L)).thenReturn(Optional.of(teacher1));
+
+        // Act
+        teacherService.findById(1L);
+        Teacher result = teacherService.findById(1L);
+
+        // Assert
+        assertSame(teacher1, result);
+        verify(teacherRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    public void testFindAllByIdLoadsOnlyMissingTeachers() {
+        // Arrange
+        when(teacherRepository.findById(1L)).thenReturn(Optional.of(teacher1));
+        teacherService.findById(1L);
+        when(teacherRepository.findAllById(List.of(2L, 3L))).thenReturn(List.of(teacher2));
+
+        // Act
+        Map<Long, Teacher> result = teacherService.findAllById(List.of(1L, 2L, 3L));
+
+        // Assert
+        // L'enseignant déjà en mémoire n'est pas relu, l'identifiant inconnu est absent
+        assertEquals(Map.of(1L, teacher1, 2L, teacher2), result);
+        verify(teacherRepository).findAllById(List.of(2L, 3L));
+    }
+
+    @Test
+    public void testUnknownIdIsNotCached() {
+        // Arrange
+        when(teacherRepository.findById(999L)).thenReturn(Optional.empty());
+
+        // Act
+        teacherService.findById(999L);
+        teacherService.findById(999L);
+
+        // Assert
+        verify(teacherRepository, times(2)).findById(999L);
+    }
+
+    @Test
+    public void testEvictReloadsCatalogue() {
+        // Arrange
+        when(teacherRepository.findAll()).thenReturn(List.of(teacher1), Arrays.asList(teacher1, teacher2));
+        teacherService.warmUp();
+
+        // Act
+        teacherService.evict(2L);
+        List<Teacher> result = teacherService.findAll();
+
+        // Assert
+        assertEquals(2, result.size());
+        verify(teacherRepository, times(2)).findAll();
+    }
+
+    @Test
+    public void testEvictAllForcesReadThrough() {
+        // Arrange
+        when(teacherRepository.findAll()).thenReturn(List.of(teacher1));
+        when(teacherRepository.findById(1L)).thenReturn(Optional.of(teacher1));
+        teacherService.warmUp();
+
+        // Act
+        teacherService.evictAll();
+        teacherService.findById(1L);
+
+        // Assert
+        verify(teacherRepository).findById(1L);
+    }
 }
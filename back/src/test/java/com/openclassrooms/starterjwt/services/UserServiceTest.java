@@ -2,6 +2,8 @@ package com.openclassrooms.starterjwt.services;
 
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.security.jwt.JwtRevocationCache;
+import com.openclassrooms.starterjwt.security.services.UserDetailsCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -23,6 +25,15 @@ public class UserServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private WaitlistService waitlistService;
+
+    @Mock
+    private JwtRevocationCache jwtRevocationCache;
+
+    @Mock
+    private UserDetailsCache userDetailsCache;
+
     private User testUser;
 
     @BeforeEach
@@ -79,6 +90,9 @@ public class UserServiceTest {
         userService.delete(userId);
 
         // Assert
+        verify(waitlistService).clearUser(userId);
         verify(userRepository).deleteById(userId);
+        verify(jwtRevocationCache).revoke(userId);
+        verify(userDetailsCache).evict(userId);
     }
 }
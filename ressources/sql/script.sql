@@ -12,29 +12,74 @@ CREATE TABLE `SESSIONS` (
   `description` VARCHAR(2000),
   `date` TIMESTAMP,
   `teacher_id` int,
+  `capacity` INT,
+  `seats_taken` INT NOT NULL DEFAULT 0,
+  `series_id` INT,
+  `created_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+  `version` INT NOT NULL DEFAULT 0,
+  INDEX `idx_sessions_updated_at` (`updated_at`),
+  INDEX `idx_sessions_date` (`date`, `id`),
+  INDEX `idx_sessions_teacher_date` (`teacher_id`, `date`),
+  UNIQUE `uk_sessions_series_date` (`series_id`, `date`)
+);
+
+CREATE TABLE `SESSION_SERIES` (
+  `id` INT PRIMARY KEY AUTO_INCREMENT,
+  `name` VARCHAR(50),
+  `description` VARCHAR(2500),
+  `teacher_id` INT,
+  `capacity` INT,
+  `start_at` TIMESTAMP NOT NULL,
+  `interval_days` INT NOT NULL,
+  `end_at` TIMESTAMP NULL,
+  `materialized_until` TIMESTAMP NOT NULL,
   `created_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
   `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
 );
 
+CREATE TABLE `SESSION_DELETIONS` (
+  `id` INT PRIMARY KEY AUTO_INCREMENT,
+  `session_id` INT NOT NULL,
+  `deleted_at` DATETIME NOT NULL,
+  INDEX `idx_session_deletions_deleted_at` (`deleted_at`)
+);
+
 CREATE TABLE `USERS` (
   `id` INT PRIMARY KEY AUTO_INCREMENT,
   `last_name` VARCHAR(40),
   `first_name` VARCHAR(40),
   `admin` BOOLEAN NOT NULL DEFAULT false,
-  `email` VARCHAR(255),
+  `email` VARCHAR(255) NOT NULL,
   `password` VARCHAR(255),
   `created_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-  `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+  `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+  UNIQUE `uk_users_email` (`email`)
 );
 
 CREATE TABLE `PARTICIPATE` (
-  `user_id` INT, 
-  `session_id` INT
+  `user_id` INT NOT NULL,
+  `session_id` INT NOT NULL,
+  PRIMARY KEY (`session_id`, `user_id`),
+  INDEX `idx_participate_user` (`user_id`, `session_id`)
+);
+
+CREATE TABLE `WAITLIST` (
+  `id` INT PRIMARY KEY AUTO_INCREMENT,
+  `session_id` INT NOT NULL,
+  `user_id` INT NOT NULL,
+  `created_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  UNIQUE (`session_id`, `user_id`),
+  INDEX `idx_waitlist_session_queue` (`session_id`, `id`)
 );
 
 ALTER TABLE `SESSIONS` ADD FOREIGN KEY (`teacher_id`) REFERENCES `TEACHERS` (`id`);
+ALTER TABLE `SESSIONS` ADD FOREIGN KEY (`series_id`) REFERENCES `SESSION_SERIES` (`id`);
+ALTER TABLE `SESSION_SERIES` ADD FOREIGN KEY (`teacher_id`) REFERENCES `TEACHERS` (`id`);
 ALTER TABLE `PARTICIPATE` ADD FOREIGN KEY (`user_id`) REFERENCES `USERS` (`id`);
 ALTER TABLE `PARTICIPATE` ADD FOREIGN KEY (`session_id`) REFERENCES `SESSIONS` (`id`);
+ALTER TABLE `WAITLIST` ADD FOREIGN KEY (`user_id`) REFERENCES `USERS` (`id`);
+ALTER TABLE `WAITLIST` ADD FOREIGN KEY (`session_id`) REFERENCES `SESSIONS` (`id`);
 
 INSERT INTO TEACHERS (first_name, last_name)
 VALUES ('Margot', 'DELAHAYE'),